@@ -0,0 +1,68 @@
+package com.example.orderservice.benchmark;
+
+import com.example.orderservice.dto.CreateOrderDto;
+import com.example.orderservice.dto.EventDto;
+import com.example.orderservice.dto.ItemDto;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.id.CustomerScopedOrderIdGenerator;
+import com.example.orderservice.id.OrderIdGenerator;
+import com.example.orderservice.id.RandomUuidOrderIdGenerator;
+import com.example.orderservice.id.TimeOrderedOrderIdGenerator;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static CreateOrderDto createOrderDto(String customerId, int itemCount) {
+        List<ItemDto> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            ItemDto item = new ItemDto();
+            item.setSku("SKU-" + i);
+            item.setQuantity(i % 5 + 1);
+            item.setPrice(9.99 + i);
+            items.add(item);
+        }
+        CreateOrderDto dto = new CreateOrderDto();
+        dto.setCustomerId(customerId);
+        dto.setItems(items);
+        return dto;
+    }
+
+    static Order order(int itemCount) {
+        List<Order.Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            Order.Item item = new Order.Item();
+            item.setSku("SKU-" + i);
+            item.setQuantity(i % 5 + 1);
+            item.setPrice(9.99 + i);
+            items.add(item);
+        }
+        Order order = new Order();
+        order.setId(UUID.randomUUID().toString());
+        order.setCustomerId("customer-1");
+        order.setItems(items);
+        return order;
+    }
+
+    // uuid, time-ordered, or either prefixed with "scoped-" for customer-scoped ids
+    static OrderIdGenerator idGenerator(String strategy) {
+        boolean scoped = strategy.startsWith("scoped-");
+        OrderIdGenerator generator = strategy.endsWith("uuid") ? new RandomUuidOrderIdGenerator() : new TimeOrderedOrderIdGenerator();
+        return scoped ? new CustomerScopedOrderIdGenerator(generator) : generator;
+    }
+
+    static EventDto event() {
+        EventDto event = new EventDto();
+        event.setOrderId(UUID.randomUUID().toString());
+        event.setOldStatus("NEW");
+        event.setNewStatus("DELIVERED");
+        event.setTimestamp(LocalDateTime.now());
+        return event;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.orderservice.benchmark;
+
+import com.example.orderservice.dto.EventDto;
+import com.example.orderservice.event.BinaryEventCodec;
+import com.example.orderservice.event.EventCodec;
+import com.example.orderservice.event.JsonEventCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producer (encode) and consumer (decode) cost and record size of each orders.events format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventCodecBenchmark {
+
+    @Param({"json", "binary"})
+    private String eventFormat;
+
+    private EventCodec codec;
+    private EventDto event;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        codec = "binary".equals(eventFormat)
+                ? new BinaryEventCodec()
+                : new JsonEventCodec(Jackson2ObjectMapperBuilder.json().build());
+        event = BenchmarkFixtures.event();
+        encoded = codec.encode(event);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(event);
+    }
+
+    @Benchmark
+    public EventDto decode() {
+        return codec.decode(encoded);
+    }
+
+    @Benchmark
+    public int recordSize() {
+        return codec.encode(event).length;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.orderservice.benchmark;
+
+import com.example.orderservice.config.KafkaConfig;
+import com.example.orderservice.dto.EventDto;
+import com.example.orderservice.event.BinaryEventCodec;
+import com.example.orderservice.event.EventCodec;
+import com.example.orderservice.event.JsonEventCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages per second for one relay-sized batch (send all, flush, wait for acks) with the previous
+ * producer settings versus the throughput profile, for each event format, against an embedded broker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class KafkaProducerBenchmark {
+    private static final String TOPIC = "orders.events.bench";
+    private static final int BATCH = 500;
+
+    @Param({"default", "throughput"})
+    public String profile;
+
+    @Param({"json", "binary"})
+    public String eventFormat;
+
+    private EmbeddedKafkaKraftBroker kafka;
+    private DefaultKafkaProducerFactory<String, byte[]> producerFactory;
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    private List<ProducerRecord<String, byte[]>> records;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        kafka = new EmbeddedKafkaKraftBroker(1, 3, TOPIC);
+        kafka.afterPropertiesSet();
+
+        Map<String, Object> props = KafkaConfig.baseProducerProperties(kafka.getBrokersAsString());
+        if ("throughput".equals(profile)) {
+            props.putAll(KafkaConfig.throughputProducerProperties());
+        }
+        producerFactory = new DefaultKafkaProducerFactory<>(props);
+        kafkaTemplate = new KafkaTemplate<>(producerFactory);
+
+        EventCodec codec = "binary".equals(eventFormat)
+                ? new BinaryEventCodec()
+                : new JsonEventCodec(new ObjectMapper().registerModule(new JavaTimeModule()));
+        records = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            EventDto event = BenchmarkFixtures.event();
+            records.add(new ProducerRecord<>(TOPIC, event.getOrderId(), codec.encode(event)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        producerFactory.destroy();
+        kafka.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int sendBatch() {
+        List<CompletableFuture<?>> sends = new ArrayList<>(BATCH);
+        for (ProducerRecord<String, byte[]> record : records) {
+            sends.add(kafkaTemplate.send(record));
+        }
+        kafkaTemplate.flush();
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+        return sends.size();
+    }
+}
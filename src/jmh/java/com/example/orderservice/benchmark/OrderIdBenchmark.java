@@ -0,0 +1,35 @@
+package com.example.orderservice.benchmark;
+
+import com.example.orderservice.id.OrderIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Id generation throughput per strategy, from 8 threads at once: none of them share state, so throughput
+ * should scale with the threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class OrderIdBenchmark {
+
+    @Param({"uuid", "time-ordered", "scoped-time-ordered"})
+    public String strategy;
+
+    private OrderIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = BenchmarkFixtures.idGenerator(strategy);
+    }
+
+    @Benchmark
+    public String newId() {
+        return generator.newId("customer-1");
+    }
+}
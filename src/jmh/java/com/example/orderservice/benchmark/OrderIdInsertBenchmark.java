@@ -0,0 +1,83 @@
+package com.example.orderservice.benchmark;
+
+import com.example.orderservice.id.OrderIdGenerator;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders inserted per second into embedded Mongo with each id strategy, in unordered batches the size of
+ * a bulk create. The collection keeps growing over the iterations, so random ids touch more and more index
+ * pages. The size of the {@code _id} index after the trial is logged at tear down for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class OrderIdInsertBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(OrderIdInsertBenchmark.class);
+    private static final int BATCH = 1000;
+    private static final int CUSTOMERS = 1000;
+
+    @Param({"uuid", "time-ordered", "scoped-time-ordered"})
+    public String strategy;
+
+    private TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+    private MongoClient client;
+    private MongoCollection<Document> orders;
+    private OrderIdGenerator generator;
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mongod = Mongod.instance().start(Version.Main.V7_0);
+        client = MongoClients.create("mongodb://" + mongod.current().getServerAddress());
+        orders = client.getDatabase("benchdb").getCollection("orders");
+        orders.drop();
+        generator = BenchmarkFixtures.idGenerator(strategy);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Document stats = client.getDatabase("benchdb").runCommand(new Document("collStats", "orders"));
+        log.info("{}: {} orders, _id index {} KiB, avg document {} bytes", strategy,
+                stats.get("count", Number.class).longValue(),
+                stats.get("indexSizes", Document.class).get("_id_", Number.class).longValue() / 1024,
+                stats.get("avgObjSize", Number.class).longValue());
+        client.close();
+        mongod.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void insertBatch() {
+        List<Document> batch = new ArrayList<>(BATCH);
+        Date now = new Date();
+        for (int i = 0; i < BATCH; i++) {
+            String customerId = "customer-" + sequence++ % CUSTOMERS;
+            batch.add(new Document("_id", generator.newId(customerId))
+                    .append("customerId", customerId)
+                    .append("status", "NEW")
+                    .append("items", List.of())
+                    .append("createdAt", now)
+                    .append("version", 0L));
+        }
+        orders.insertMany(batch, new InsertManyOptions().ordered(false));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.orderservice.benchmark;
+
+import com.example.orderservice.dto.CreateOrderDto;
+import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.service.OrderMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderMappingBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int items;
+
+    private CreateOrderDto createDto;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        createDto = BenchmarkFixtures.createOrderDto("customer-1", items);
+        order = BenchmarkFixtures.order(items);
+    }
+
+    @Benchmark
+    public Order mapToItem() {
+        return OrderMapper.newOrder(createDto);
+    }
+
+    @Benchmark
+    public OrderResponseDto mapToDto() {
+        return OrderMapper.toDto(order);
+    }
+}
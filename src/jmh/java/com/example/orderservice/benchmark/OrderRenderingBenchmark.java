@@ -0,0 +1,73 @@
+package com.example.orderservice.benchmark;
+
+import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.service.OrderJsonWriter;
+import com.example.orderservice.service.OrderMapper;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Renders a page of orders as the GET /orders response body: mapping to DTOs and serializing them with
+ * Jackson (before) vs writing the entities with OrderJsonWriter. Run with -prof gc and compare
+ * gc.alloc.rate.norm (bytes per page) along with throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderRenderingBenchmark {
+
+    @Param({"1", "50", "500"})
+    private int pageSize;
+
+    @Param({"3"})
+    private int items;
+
+    // Same defaults as the ObjectMapper Spring Boot injects
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectWriter listWriter = objectMapper.writerFor(
+            objectMapper.getTypeFactory().constructCollectionType(List.class, OrderResponseDto.class));
+    // Discards the bytes so only rendering is measured, like a servlet stream with a reused buffer
+    private final OutputStream sink = OutputStream.nullOutputStream();
+    private List<Order> page;
+
+    @Setup
+    public void setUp() {
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            page.add(BenchmarkFixtures.order(items));
+        }
+    }
+
+    @Benchmark
+    public void mapAndSerialize() throws IOException {
+        List<OrderResponseDto> dtos = page.stream().map(OrderMapper::toDto).collect(Collectors.toList());
+        listWriter.writeValue(sink, dtos);
+    }
+
+    @Benchmark
+    public void writeEntities() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(sink, JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            OrderJsonWriter writer = new OrderJsonWriter(generator);
+            for (Order order : page) {
+                writer.write(order);
+            }
+            generator.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.orderservice.benchmark;
+
+import com.example.orderservice.OrderServiceApplication;
+import com.example.orderservice.dto.CreateOrderDto;
+import com.example.orderservice.dto.OrderPageDto;
+import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.dto.UpdateStatusDto;
+import com.example.orderservice.repository.OrderFilter;
+import com.example.orderservice.service.OrderService;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end service benchmark against embedded Mongo, an embedded Kafka broker and a Redis container (needs Docker),
+ * so every cache read, write, eviction and invalidation takes the production path: the configured cache manager,
+ * value serializer and TTLs, with ({@code localCache=true}, the default) or without the in-process tier.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+    @Param({"true", "false"})
+    private boolean localCache;
+
+    private TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+    private EmbeddedKafkaKraftBroker kafka;
+    private GenericContainer<?> redis;
+    private ConfigurableApplicationContext context;
+    private OrderService service;
+    private CreateOrderDto createDto;
+    private String cachedOrderId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mongod = Mongod.instance().start(Version.Main.V7_0);
+        kafka = new EmbeddedKafkaKraftBroker(1, 1, "orders.events");
+        kafka.afterPropertiesSet();
+        redis = new GenericContainer<>(DockerImageName.parse("redis:7.2")).withExposedPorts(6379);
+        redis.start();
+
+        context = new SpringApplicationBuilder(OrderServiceApplication.class)
+                .properties(
+                        "MONGO_URI=mongodb://" + mongod.current().getServerAddress() + "/benchdb",
+                        "spring.autoconfigure.exclude=de.flapdoodle.embed.mongo.spring.autoconfigure.EmbeddedMongoAutoConfiguration",
+                        "spring.kafka.bootstrap-servers=" + kafka.getBrokersAsString(),
+                        "spring.kafka.producer.properties.security.protocol=PLAINTEXT",
+                        "REDIS_HOST=" + redis.getHost(),
+                        "REDIS_PORT=" + redis.getMappedPort(6379),
+                        "REDIS_USER=",
+                        "REDIS_PASS=",
+                        "app.cache.local.enabled=" + localCache,
+                        "logging.level.com.example.orderservice=WARN",
+                        "logging.level.org.springframework.data.mongodb=WARN")
+                .run();
+        service = context.getBean(OrderService.class);
+        createDto = BenchmarkFixtures.createOrderDto("customer-1", 5);
+        cachedOrderId = service.create(createDto).getId();
+        service.getById(cachedOrderId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        kafka.destroy();
+        redis.stop();
+        mongod.close();
+    }
+
+    @Benchmark
+    public OrderResponseDto create() {
+        return service.create(createDto);
+    }
+
+    @Benchmark
+    public OrderResponseDto getByIdCached() {
+        return service.getById(cachedOrderId);
+    }
+
+    @Benchmark
+    public OrderPageDto getFilteredPage() {
+        return service.getFiltered(OrderFilter.of(null, "customer-1"), null, 50);
+    }
+
+    @Benchmark
+    public OrderResponseDto createAndUpdateStatus() {
+        OrderResponseDto created = service.create(createDto);
+        UpdateStatusDto update = new UpdateStatusDto();
+        update.setStatus("IN_PROGRESS");
+        return service.updateStatus(created.getId(), update);
+    }
+}
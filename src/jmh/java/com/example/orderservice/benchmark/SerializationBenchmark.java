@@ -0,0 +1,62 @@
+package com.example.orderservice.benchmark;
+
+import com.example.orderservice.cache.OrderCacheSerializer;
+import com.example.orderservice.config.CacheConfig;
+import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.service.OrderMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis cache values per format and order size. Event serialization, which depends on neither, is in
+ * {@link EventCodecBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int items;
+
+    @Param({"json", "binary"})
+    private String cacheFormat;
+
+    private RedisSerializer<Object> cacheSerializer;
+    private OrderResponseDto order;
+    private byte[] cachedOrder;
+
+    @Setup
+    public void setUp() {
+        cacheSerializer = "binary".equals(cacheFormat)
+                ? new OrderCacheSerializer(CacheConfig.jsonValueSerializer(), 1024)
+                : CacheConfig.jsonValueSerializer();
+        order = OrderMapper.toDto(BenchmarkFixtures.order(items));
+        cachedOrder = cacheSerializer.serialize(order);
+    }
+
+    @Benchmark
+    public byte[] cacheSerialize() {
+        return cacheSerializer.serialize(order);
+    }
+
+    @Benchmark
+    public Object cacheDeserialize() {
+        return cacheSerializer.deserialize(cachedOrder);
+    }
+
+    @Benchmark
+    public int cacheEntrySize() {
+        return cacheSerializer.serialize(order).length;
+    }
+
+    @Benchmark
+    public Object cacheRoundTrip() {
+        return cacheSerializer.deserialize(cacheSerializer.serialize(order));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.orderservice.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evicts many keys of a Redis-backed cache in one round trip instead of one DEL per key.
+ * The cache is looked up through the {@link CacheManager} and its Redis keys use the {@link RedisCache}'s own
+ * prefix; caches without Redis behind them are evicted key by key.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheBatchEvictor {
+    private final StringRedisTemplate redisTemplate;
+    private final CacheManager cacheManager;
+    private final CacheInvalidationPublisher invalidationPublisher;
+
+    public void evictAll(String cacheName, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (!(redisCache(cache) instanceof RedisCache redis)) {
+            keys.forEach(cache::evict);
+            return;
+        }
+        // As RedisCache builds its keys: no prefix at all when it is disabled
+        String prefix = redis.getCacheConfiguration().usePrefix() ? redis.getCacheConfiguration().getKeyPrefixFor(cacheName) : "";
+        List<String> redisKeys = keys.stream().map(key -> prefix + key).toList();
+        redisTemplate.delete(redisKeys);
+
+        if (unwrap(cache) instanceof TwoTierCache twoTier) {
+            twoTier.evictLocal(keys);
+            invalidationPublisher.publish(cacheName, keys);
+        }
+    }
+
+    private static Cache unwrap(Cache cache) {
+        return cache instanceof OrderJsonCache orderJson ? orderJson.delegate() : cache;
+    }
+
+    private static Cache redisCache(Cache cache) {
+        Cache target = unwrap(cache);
+        return target instanceof TwoTierCache twoTier ? twoTier.remote() : target;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.orderservice.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+@Slf4j
+@RequiredArgsConstructor
+public class CacheInvalidationListener implements MessageListener {
+    private final TwoTierCacheManager cacheManager;
+    private final String nodeId;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] lines = new String(message.getBody(), StandardCharsets.UTF_8).split("\n");
+        if (lines.length < 2 || nodeId.equals(lines[0])) {
+            return;
+        }
+        List<String> keys = Arrays.asList(lines).subList(2, lines.length);
+        log.debug("Invalidating local cache {} for {} keys from node {}", lines[1], keys.size(), lines[0]);
+        cacheManager.evictLocal(lines[1], keys);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.orderservice.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Broadcasts local-cache invalidations over Redis pub/sub.
+ * Message format: origin node id, cache name and one key per line; no keys means "clear".
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class CacheInvalidationPublisher {
+    public static final String CHANNEL = "orders.cache.invalidation";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String message(String cacheName, Collection<?> keys) {
+        StringBuilder message = new StringBuilder(nodeId).append('\n').append(cacheName);
+        for (Object key : keys) {
+            message.append('\n').append(key);
+        }
+        return message.toString();
+    }
+
+    public void publish(String cacheName, Collection<?> keys) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, message(cacheName, keys));
+        } catch (Exception e) {
+            // Other nodes fall back to the local TTL; the write itself already succeeded
+            log.warn("Failed to publish cache invalidation for {} {}", cacheName, keys, e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.orderservice.cache;
+
+import com.example.orderservice.dto.ItemDto;
+import com.example.orderservice.dto.OrderResponseDto;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary encoding for cached {@link OrderResponseDto}s: no type metadata or field names,
+ * deflated above a size threshold. Any other value, and any entry that does not start with the
+ * binary header (e.g. JSON written before the rollout), goes through the JSON delegate.
+ * Format 1 entries (written before orders carried a version) are still readable.
+ */
+public class OrderCacheSerializer implements RedisSerializer<Object> {
+    // JSON entries start with '{' or '[', never with this byte
+    static final byte MAGIC = (byte) 0xB1;
+    static final byte FORMAT_VERSION = 2;
+    private static final byte FORMAT_VERSION_UNVERSIONED = 1;
+    private static final int FLAG_DEFLATED = 1;
+    private static final int HEADER_SIZE = 3;
+
+    private final RedisSerializer<Object> jsonSerializer;
+    private final int compressionThreshold;
+
+    public OrderCacheSerializer(RedisSerializer<Object> jsonSerializer, int compressionThreshold) {
+        this.jsonSerializer = jsonSerializer;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!(value instanceof OrderResponseDto order)) {
+            return jsonSerializer.serialize(value);
+        }
+        try {
+            byte[] payload = encode(order);
+            boolean deflate = payload.length > compressionThreshold;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE + payload.length);
+            bytes.write(MAGIC);
+            bytes.write(FORMAT_VERSION);
+            bytes.write(deflate ? FLAG_DEFLATED : 0);
+            if (deflate) {
+                Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+                try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+                    out.write(payload);
+                } finally {
+                    deflater.end();
+                }
+            } else {
+                bytes.write(payload);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Could not write order to cache", e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_SIZE) {
+            throw new SerializationException("Truncated cache entry: " + bytes.length + " bytes");
+        }
+        byte format = bytes[1];
+        if (format != FORMAT_VERSION && format != FORMAT_VERSION_UNVERSIONED) {
+            throw new SerializationException("Unsupported cache format version " + bytes[1]);
+        }
+        InputStream in = new ByteArrayInputStream(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+        if ((bytes[2] & FLAG_DEFLATED) != 0) {
+            in = new InflaterInputStream(in);
+        }
+        try (DataInputStream data = new DataInputStream(in)) {
+            return decode(data, format);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read order from cache", e);
+        }
+    }
+
+    private static byte[] encode(OrderResponseDto order) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, order.getId());
+        writeString(out, order.getCustomerId());
+        writeString(out, order.getStatus());
+        writeDateTime(out, order.getCreatedAt());
+        writeDateTime(out, order.getUpdatedAt());
+        out.writeBoolean(order.getVersion() != null);
+        if (order.getVersion() != null) {
+            out.writeLong(order.getVersion());
+        }
+        List<ItemDto> items = order.getItems();
+        out.writeInt(items == null ? -1 : items.size());
+        if (items != null) {
+            for (ItemDto item : items) {
+                writeString(out, item.getSku());
+                out.writeInt(item.getQuantity());
+                out.writeDouble(item.getPrice());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static OrderResponseDto decode(DataInputStream in, byte format) throws IOException {
+        OrderResponseDto order = new OrderResponseDto();
+        order.setId(readString(in));
+        order.setCustomerId(readString(in));
+        order.setStatus(readString(in));
+        order.setCreatedAt(readDateTime(in));
+        order.setUpdatedAt(readDateTime(in));
+        if (format >= FORMAT_VERSION && in.readBoolean()) {
+            order.setVersion(in.readLong());
+        }
+        int itemCount = in.readInt();
+        if (itemCount >= 0) {
+            List<ItemDto> items = new ArrayList<>(itemCount);
+            for (int i = 0; i < itemCount; i++) {
+                ItemDto item = new ItemDto();
+                item.setSku(readString(in));
+                item.setQuantity(in.readInt());
+                item.setPrice(in.readDouble());
+                items.add(item);
+            }
+            order.setItems(items);
+        }
+        return order;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.orderservice.cache;
+
+import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.service.OrderJsonWriter;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * An order as its final GET /orders/{id} response body, plus the ETag of that body and the status
+ * (for the per-status cache TTL). Cached instead of the DTO when {@code app.cache.order-json.enabled} is set,
+ * so hits are written to the response as is. The body must not be modified.
+ */
+public final class OrderJson {
+    private final byte[] body;
+    private final String etag;
+    private final String status;
+
+    public OrderJson(byte[] body, String etag, String status) {
+        this.body = body;
+        this.etag = etag;
+        this.status = status;
+    }
+
+    public static OrderJson of(OrderResponseDto order, JsonFactory jsonFactory) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            new OrderJsonWriter(generator).write(order);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not render order " + order.getId(), e);
+        }
+        byte[] body = out.toByteArray();
+        // Strong validator: computed from the exact bytes that are served
+        return new OrderJson(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"", order.getStatus());
+    }
+
+    public OrderResponseDto toDto(ObjectMapper objectMapper) {
+        try {
+            return objectMapper.readValue(body, OrderResponseDto.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read cached order", e);
+        }
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.orderservice.cache;
+
+import com.example.orderservice.dto.OrderResponseDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Decorates the "orders" cache. With {@code storeJson}, orders put or loaded into it are stored as
+ * {@link OrderJson}; {@link #getJson} hands that form to the HTTP layer. Every other caller still sees
+ * {@link OrderResponseDto}s, and entries of either form are readable in both modes, so the mode can be
+ * switched while the other form is still cached.
+ */
+public class OrderJsonCache implements Cache {
+    private final Cache delegate;
+    private final ObjectMapper objectMapper;
+    private final boolean storeJson;
+
+    public OrderJsonCache(Cache delegate, ObjectMapper objectMapper, boolean storeJson) {
+        this.delegate = delegate;
+        this.objectMapper = objectMapper;
+        this.storeJson = storeJson;
+    }
+
+    // Loads through the delegate, so concurrent misses and refresh-ahead work as for get(key, loader)
+    public OrderJson getJson(Object key, Callable<OrderResponseDto> valueLoader) {
+        Object value = delegate.get(key, () -> stored(valueLoader.call()));
+        return value instanceof OrderJson json ? json : OrderJson.of((OrderResponseDto) value, objectMapper.getFactory());
+    }
+
+    Cache delegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        return wrapper == null || !(wrapper.get() instanceof OrderJson) ? wrapper : new SimpleValueWrapper(dto(wrapper.get()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper == null) {
+            return null;
+        }
+        Object value = wrapper.get();
+        if (type == OrderJson.class && value instanceof OrderResponseDto order) {
+            return (T) OrderJson.of(order, objectMapper.getFactory());
+        }
+        Object converted = type == OrderJson.class ? value : dto(value);
+        if (type != null && converted != null && !type.isInstance(converted)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + converted);
+        }
+        return (T) converted;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // On a miss the loaded DTO is returned as is rather than parsed back from the stored JSON
+        AtomicReference<T> loaded = new AtomicReference<>();
+        Object value = delegate.get(key, () -> {
+            T result = valueLoader.call();
+            loaded.set(result);
+            return stored(result);
+        });
+        return loaded.get() != null ? loaded.get() : (T) dto(value);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, stored(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, stored(value));
+        return existing == null || !(existing.get() instanceof OrderJson) ? existing : new SimpleValueWrapper(dto(existing.get()));
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    private Object stored(Object value) {
+        return storeJson && value instanceof OrderResponseDto order ? OrderJson.of(order, objectMapper.getFactory()) : value;
+    }
+
+    private Object dto(Object value) {
+        return value instanceof OrderJson json ? json.toDto(objectMapper) : value;
+    }
+}
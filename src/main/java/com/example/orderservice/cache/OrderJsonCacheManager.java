@@ -0,0 +1,62 @@
+package com.example.orderservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+
+/**
+ * Wraps the "orders" cache of the delegate in an {@link OrderJsonCache}; other caches are returned as they are.
+ * Being the bean, it passes context shutdown on to a disposable delegate.
+ */
+public class OrderJsonCacheManager implements CacheManager, DisposableBean {
+    public static final String CACHE_NAME = "orders";
+
+    private final CacheManager delegate;
+    private final ObjectMapper objectMapper;
+    private final boolean storeJson;
+    private volatile OrderJsonCache orders;
+
+    public OrderJsonCacheManager(CacheManager delegate, ObjectMapper objectMapper, boolean storeJson) {
+        this.delegate = delegate;
+        this.objectMapper = objectMapper;
+        this.storeJson = storeJson;
+    }
+
+    // The manager being wrapped, e.g. to reach TwoTierCacheManager's local tier
+    public static CacheManager unwrap(CacheManager cacheManager) {
+        return cacheManager instanceof OrderJsonCacheManager wrapper ? wrapper.delegate : cacheManager;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        if (!CACHE_NAME.equals(name)) {
+            return delegate.getCache(name);
+        }
+        OrderJsonCache cache = orders;
+        if (cache == null) {
+            Cache target = delegate.getCache(name);
+            if (target == null) {
+                return null;
+            }
+            // Benign race: the delegate returns the same cache, so any of the wrappers will do
+            cache = new OrderJsonCache(target, objectMapper, storeJson);
+            orders = cache;
+        }
+        return cache;
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (delegate instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.orderservice.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Stores {@link OrderJson} values as a short header (ETag, status) followed by the response body, so
+ * reading one back is a copy, not a parse. Everything else goes through the delegate.
+ */
+public class OrderJsonRedisSerializer implements RedisSerializer<Object> {
+    // Neither JSON nor OrderCacheSerializer entries start with this byte
+    static final byte MAGIC = (byte) 0xB2;
+    static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 2;
+
+    private final RedisSerializer<Object> delegate;
+
+    public OrderJsonRedisSerializer(RedisSerializer<Object> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!(value instanceof OrderJson order)) {
+            return delegate.serialize(value);
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(order.getBody().length + 64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(order.getEtag());
+            out.writeBoolean(order.getStatus() != null);
+            if (order.getStatus() != null) {
+                out.writeUTF(order.getStatus());
+            }
+            out.write(order.getBody());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Could not write order JSON to cache", e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0 || bytes[0] != MAGIC) {
+            return delegate.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_SIZE) {
+            throw new SerializationException("Truncated order JSON cache entry: " + bytes.length + " bytes");
+        }
+        if (bytes[1] != FORMAT_VERSION) {
+            throw new SerializationException("Unsupported order JSON cache format version " + bytes[1]);
+        }
+        ByteArrayInputStream header = new ByteArrayInputStream(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+        try (DataInputStream in = new DataInputStream(header)) {
+            String etag = in.readUTF();
+            String status = in.readBoolean() ? in.readUTF() : null;
+            return new OrderJson(Arrays.copyOfRange(bytes, bytes.length - header.available(), bytes.length), etag, status);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read order JSON from cache", e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.orderservice.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Records cache value (de)serialization time as cache.serialization{operation,format}.
+ */
+public class TimedRedisSerializer implements RedisSerializer<Object> {
+    private final RedisSerializer<Object> delegate;
+    private final Timer serializeTimer;
+    private final Timer deserializeTimer;
+
+    public TimedRedisSerializer(RedisSerializer<Object> delegate, String format, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.serializeTimer = timer(meterRegistry, "serialize", format);
+        this.deserializeTimer = timer(meterRegistry, "deserialize", format);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String operation, String format) {
+        return Timer.builder("cache.serialization")
+                .description("Cache value encoding and decoding time")
+                .tag("operation", operation)
+                .tag("format", format)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        return serializeTimer.record(() -> delegate.serialize(value));
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        return deserializeTimer.record(() -> delegate.deserialize(bytes));
+    }
+}
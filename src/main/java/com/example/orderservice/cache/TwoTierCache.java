@@ -0,0 +1,299 @@
+package com.example.orderservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Size-bounded in-process cache (L1) in front of a shared remote cache (L2).
+ * Writes and evictions go through to L2 and are broadcast so other nodes drop their L1 copy. A value read
+ * from L2 is not kept in L1 if a change or invalidation of its key arrived while it was being read.
+ * <p>
+ * Loads through {@link #get(Object, Callable)} ({@code @Cacheable(sync = true)}) are single-flight per key on
+ * this node: concurrent misses wait for the one load in flight. Hot entries are refreshed ahead of expiry:
+ * a lookup in the last {@code refreshAhead} fraction of the L1 lifetime (at a random point per entry, so keys
+ * do not refresh together) returns the cached value and reloads it in the background, which also renews L2.
+ */
+@Slf4j
+public class TwoTierCache implements Cache {
+    private static final int EVICTION_STRIPES = 64;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, ValueWrapper> local;
+    private final Cache remote;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final long localTtlNanos;
+    private final double refreshAhead;
+    private final Executor refreshExecutor;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+    // Bumped by every change of a key (per stripe of keys), so an L2 read that raced with one is not kept in L1
+    private final AtomicLongArray changes = new AtomicLongArray(EVICTION_STRIPES);
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter loads;
+    private final Counter coalescedLoads;
+    private final Counter refreshes;
+
+    public TwoTierCache(String name,
+                        com.github.benmanes.caffeine.cache.Cache<Object, ValueWrapper> local,
+                        Cache remote,
+                        CacheInvalidationPublisher invalidationPublisher,
+                        MeterRegistry meterRegistry,
+                        Duration localTtl,
+                        double refreshAhead,
+                        Executor refreshExecutor) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationPublisher = invalidationPublisher;
+        this.localTtlNanos = localTtl.toNanos();
+        this.refreshAhead = refreshAhead;
+        this.refreshExecutor = refreshExecutor;
+        this.localHits = tierCounter(meterRegistry, "local", "hit");
+        this.localMisses = tierCounter(meterRegistry, "local", "miss");
+        this.remoteHits = tierCounter(meterRegistry, "remote", "hit");
+        this.remoteMisses = tierCounter(meterRegistry, "remote", "miss");
+        this.loads = loadCounter(meterRegistry, "load");
+        this.coalescedLoads = loadCounter(meterRegistry, "coalesced");
+        this.refreshes = loadCounter(meterRegistry, "refresh");
+    }
+
+    private Counter loadCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("cache.loads")
+                .description("Value loader calls (load, refresh) and misses that waited for a load in flight (coalesced)")
+                .tag("cache", name)
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private Counter tierCounter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("cache.tier.gets")
+                .description("Cache lookups per tier")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper cached = local.getIfPresent(key);
+        if (cached != null) {
+            localHits.increment();
+            return cached;
+        }
+        localMisses.increment();
+
+        int stripe = stripe(key);
+        long version = changes.get(stripe);
+        ValueWrapper remoteValue = remote.get(key);
+        if (remoteValue == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        ValueWrapper wrapper = localEntry(remoteValue.get());
+        if (version == changes.get(stripe)) {
+            local.put(key, wrapper);
+            // A change after the check above may have invalidated L1 before this put landed
+            if (version != changes.get(stripe)) {
+                local.asMap().remove(key, wrapper);
+            }
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            if (wrapper instanceof LocalEntry entry && entry.refreshDue(System.nanoTime())) {
+                refreshAsync(key, valueLoader);
+            }
+            return (T) wrapper.get();
+        }
+
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loading.putIfAbsent(key, load);
+        if (inFlight != null) {
+            coalescedLoads.increment();
+            try {
+                return (T) inFlight.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        // A load may have completed between the lookup and the registration
+        ValueWrapper loaded = local.getIfPresent(key);
+        if (loaded != null) {
+            loading.remove(key, load);
+            load.complete(loaded.get());
+            return (T) loaded.get();
+        }
+        loads.increment();
+        try {
+            return (T) loadAndStore(key, valueLoader, load);
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    private void refreshAsync(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> refresh = new CompletableFuture<>();
+        if (loading.putIfAbsent(key, refresh) != null) {
+            return;
+        }
+        refreshes.increment();
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    loadAndStore(key, valueLoader, refresh);
+                } catch (Exception e) {
+                    // e.g. the entry was deleted; stop serving it rather than retrying on every hit
+                    log.debug("Refresh of {} in cache {} failed", key, name, e);
+                    local.invalidate(key);
+                }
+            });
+        } catch (RuntimeException e) {
+            loading.remove(key, refresh);
+            refresh.completeExceptionally(e);
+        }
+    }
+
+    // Completes the future registered for the key with the loaded value (or failure) and unregisters it
+    private Object loadAndStore(Object key, Callable<?> valueLoader, CompletableFuture<Object> load) throws Exception {
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Throwable e) {
+            loading.remove(key, load);
+            load.completeExceptionally(e);
+            throw e;
+        }
+        try {
+            // Not stored if the key was evicted meanwhile: the value may predate the change that evicted it
+            if (loading.remove(key, load)) {
+                remote.put(key, value);
+                local.put(key, localEntry(value));
+            }
+        } finally {
+            load.complete(value);
+        }
+        return value;
+    }
+
+    private LocalEntry localEntry(Object value) {
+        if (refreshAhead <= 0) {
+            return new LocalEntry(value, false, 0);
+        }
+        long refreshAfter = (long) (localTtlNanos * (1 - refreshAhead * ThreadLocalRandom.current().nextDouble()));
+        return new LocalEntry(value, true, System.nanoTime() + refreshAfter);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        changed(key);
+        loading.remove(key);
+        remote.put(key, value);
+        local.put(key, localEntry(value));
+        invalidationPublisher.publish(name, List.of(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        changed(key);
+        loading.remove(key);
+        remote.evict(key);
+        local.invalidate(key);
+        invalidationPublisher.publish(name, List.of(key));
+    }
+
+    @Override
+    public void clear() {
+        changedAll();
+        loading.clear();
+        remote.clear();
+        local.invalidateAll();
+        invalidationPublisher.publish(name, List.of());
+    }
+
+    Cache remote() {
+        return remote;
+    }
+
+    // Applies an invalidation received from another node; L2 was already updated by the sender.
+    void evictLocal(Collection<?> keys) {
+        if (keys.isEmpty()) {
+            changedAll();
+            loading.clear();
+            local.invalidateAll();
+        } else {
+            keys.forEach(this::changed);
+            keys.forEach(loading::remove);
+            local.invalidateAll(keys);
+        }
+    }
+
+    private static int stripe(Object key) {
+        return Math.floorMod(key.hashCode(), EVICTION_STRIPES);
+    }
+
+    private void changed(Object key) {
+        changes.incrementAndGet(stripe(key));
+    }
+
+    private void changedAll() {
+        for (int i = 0; i < EVICTION_STRIPES; i++) {
+            changes.incrementAndGet(i);
+        }
+    }
+
+    record LocalEntry(Object value, boolean refreshable, long refreshAtNanos) implements ValueWrapper {
+        @Override
+        public Object get() {
+            return value;
+        }
+
+        boolean refreshDue(long nowNanos) {
+            return refreshable && nowNanos - refreshAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.orderservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@RequiredArgsConstructor
+public class TwoTierCacheManager implements CacheManager, DisposableBean {
+    private final CacheManager remoteCacheManager;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final MeterRegistry meterRegistry;
+    private final long localMaximumSize;
+    private final Duration localTtl;
+    private final double refreshAhead;
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    // Background refreshes block on Mongo and Redis; virtual threads keep them off the request threads
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> createCache(n, remote));
+    }
+
+    private TwoTierCache createCache(String name, Cache remote) {
+        // Short local TTL bounds staleness if an invalidation message is lost
+        com.github.benmanes.caffeine.cache.Cache<Object, Cache.ValueWrapper> local = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name + ".local");
+        return new TwoTierCache(name, local, remote, invalidationPublisher, meterRegistry, localTtl, refreshAhead, refreshExecutor);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    // Drops this node's L1 copies only (all of them for no keys); L2 and other nodes are left alone
+    public void evictLocal(String cacheName, Collection<?> keys) {
+        TwoTierCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.evictLocal(keys);
+        }
+    }
+
+    // Refreshes are best-effort: give the running ones a moment, then interrupt them; later ones are rejected
+    @Override
+    public void destroy() throws InterruptedException {
+        refreshExecutor.shutdown();
+        if (!refreshExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.orderservice.config;
+
+import com.example.orderservice.filter.AdmissionControlFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "app.admission.enabled", havingValue = "true")
+public class AdmissionControlConfig {
+
+    @Value("${app.admission.max-concurrent:2000}")
+    private int maxConcurrent;
+
+    @Value("${app.admission.latency-budget:500ms}")
+    private Duration latencyBudget;
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<AdmissionControlFilter> registration =
+                new FilterRegistrationBean<>(new AdmissionControlFilter(maxConcurrent, latencyBudget, meterRegistry));
+        // Every API read and write path: orders and the customer summaries
+        registration.addUrlPatterns("/orders", "/orders/*", "/customers/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -1,34 +1,157 @@
 package com.example.orderservice.config;
 
+import com.example.orderservice.cache.CacheInvalidationListener;
+import com.example.orderservice.cache.CacheInvalidationPublisher;
+import com.example.orderservice.cache.OrderCacheSerializer;
+import com.example.orderservice.cache.OrderJsonCacheManager;
+import com.example.orderservice.cache.OrderJsonRedisSerializer;
+import com.example.orderservice.cache.TimedRedisSerializer;
+import com.example.orderservice.cache.TwoTierCacheManager;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
+@EnableConfigurationProperties({CacheTtlProperties.class, CacheProperties.class})
 public class CacheConfig {
-    @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
 
+    @Value("${app.cache.local.enabled:true}")
+    private boolean localCacheEnabled;
+
+    @Value("${app.cache.local.maximum-size:10000}")
+    private long localMaximumSize;
+
+    @Value("${app.cache.local.ttl:30s}")
+    private Duration localTtl;
+
+    @Value("${app.cache.local.refresh-ahead:0.25}")
+    private double localRefreshAhead;
+
+    @Value("${app.cache.serializer:json}")
+    private String cacheSerializer;
+
+    @Value("${app.cache.compression-threshold:1024}")
+    private int compressionThreshold;
+
+    @Value("${app.cache.order-json.enabled:false}")
+    private boolean orderJsonEnabled;
+
+    public static RedisSerializer<Object> jsonValueSerializer() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
+        return new GenericJackson2JsonRedisSerializer(objectMapper);  // Usa ObjectMapper custom
+    }
+
+    @Bean
+    public RedisSerializer<Object> cacheValueSerializer(MeterRegistry meterRegistry) {
+        // Order JSON entries are readable whatever the mode (see OrderJsonCache)
+        if ("binary".equals(cacheSerializer)) {
+            // Still reads JSON entries, so it can be switched on while old entries are in Redis
+            return new TimedRedisSerializer(new OrderJsonRedisSerializer(
+                    new OrderCacheSerializer(jsonValueSerializer(), compressionThreshold)), "binary", meterRegistry);
+        }
+        return new TimedRedisSerializer(new OrderJsonRedisSerializer(jsonValueSerializer()), "json", meterRegistry);
+    }
 
+    // Key layout of every RedisCache, honouring spring.cache.redis.key-prefix/use-key-prefix as Boot's own cache
+    // manager would; code that builds Redis keys by hand takes its prefix from here
+    @Bean
+    public RedisCacheConfiguration redisCacheConfiguration(CacheProperties cacheProperties,
+                                                           RedisSerializer<Object> cacheValueSerializer) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofSeconds(60))
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer(objectMapper)));  // Usa ObjectMapper custom
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(cacheValueSerializer));
+        CacheProperties.Redis redis = cacheProperties.getRedis();
+        if (redis.getKeyPrefix() != null) {
+            config = config.prefixCacheNameWith(redis.getKeyPrefix());
+        }
+        if (!redis.isUseKeyPrefix()) {
+            config = config.disableKeyPrefix();
+        }
+        return config;
+    }
 
-        return RedisCacheManager.builder(redisConnectionFactory)
-                .cacheDefaults(config)
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                     RedisCacheConfiguration config,
+                                     CacheInvalidationPublisher invalidationPublisher,
+                                     CacheTtlProperties cacheTtl,
+                                     MeterRegistry meterRegistry,
+                                     ObjectMapper objectMapper) {
+
+        // TTL per cache name, and per value for orders (see CacheTtlProperties)
+        Map<String, RedisCacheConfiguration> cacheConfigs = new HashMap<>();
+        cacheTtl.getCaches().keySet().forEach(name -> cacheConfigs.put(name, config.entryTtl(ttlFunction(cacheTtl, name))));
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
+                .cacheDefaults(config.entryTtl(ttlFunction(cacheTtl, null)))
+                .withInitialCacheConfigurations(cacheConfigs)
+                // Hit/miss/put counters (cache.gets, cache.puts) when Redis is the only tier
+                .enableStatistics()
+                .build();
+        redisCacheManager.initializeCaches();
+        CacheManager cacheManager = redisCacheManager;
+        if (localCacheEnabled) {
+            cacheManager = new TwoTierCacheManager(redisCacheManager, invalidationPublisher, meterRegistry, localMaximumSize,
+                    localTtl, localRefreshAhead);
+        }
+        // Outermost, so the local tier holds the same form as Redis
+        return new OrderJsonCacheManager(cacheManager, objectMapper, orderJsonEnabled);
+    }
+
+    private static RedisCacheWriter.TtlFunction ttlFunction(CacheTtlProperties cacheTtl, String cacheName) {
+        return (key, value) -> cacheTtl.ttl(cacheName, value);
+    }
+
+    // Same key layout and value format as the "orders" RedisCache, for the reactive stack
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveCacheTemplate(ReactiveRedisConnectionFactory connectionFactory,
+                                                                       RedisSerializer<Object> cacheValueSerializer) {
+        RedisSerializationContext<String, Object> context = RedisSerializationContext.<String, Object>newSerializationContext(new StringRedisSerializer())
+                .value(cacheValueSerializer)
                 .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, context);
+    }
+
+    @Bean
+    public CacheInvalidationPublisher cacheInvalidationPublisher(StringRedisTemplate redisTemplate) {
+        return new CacheInvalidationPublisher(redisTemplate);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                            CacheManager cacheManager,
+                                                                            CacheInvalidationPublisher invalidationPublisher) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        if (OrderJsonCacheManager.unwrap(cacheManager) instanceof TwoTierCacheManager twoTierCacheManager) {
+            container.addMessageListener(
+                    new CacheInvalidationListener(twoTierCacheManager, invalidationPublisher.getNodeId()),
+                    new ChannelTopic(CacheInvalidationPublisher.CHANNEL));
+        }
+        return container;
     }
-}
\ No newline at end of file
+}
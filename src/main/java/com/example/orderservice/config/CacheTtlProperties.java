@@ -0,0 +1,34 @@
+package com.example.orderservice.config;
+
+import com.example.orderservice.cache.OrderJson;
+import com.example.orderservice.dto.OrderResponseDto;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Redis entry TTLs. The most specific rule wins: the order status of an {@link OrderResponseDto} or {@link OrderJson} value
+ * (terminal orders no longer change and can live much longer), then the cache name, then {@code entry}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.ttl")
+public class CacheTtlProperties {
+    private Duration entry = Duration.ofSeconds(60);
+    private Map<String, Duration> caches = new HashMap<>();
+    private Map<String, Duration> orderStatus = new HashMap<>();
+
+    public Duration ttl(String cacheName, Object value) {
+        String status = value instanceof OrderResponseDto order ? order.getStatus()
+                : value instanceof OrderJson json ? json.getStatus() : null;
+        if (status != null) {
+            Duration statusTtl = orderStatus.get(status);
+            if (statusTtl != null) {
+                return statusTtl;
+            }
+        }
+        return caches.getOrDefault(cacheName, entry);
+    }
+}
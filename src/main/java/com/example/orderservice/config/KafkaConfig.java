@@ -1,12 +1,19 @@
 package com.example.orderservice.config;
 
+import com.example.orderservice.event.BinaryEventCodec;
+import com.example.orderservice.event.EventCodec;
+import com.example.orderservice.event.JsonEventCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
 
 import java.util.HashMap;
@@ -27,28 +34,70 @@ public class KafkaConfig {
     @Value("${spring.kafka.producer.properties.sasl.jaas.config:}")
     private String saslJaasConfig;
 
+    // throughput (batched, compressed) or default (client defaults, the previous behaviour)
+    @Value("${app.kafka.producer.profile:throughput}")
+    private String producerProfile;
+
+    // Format of the events topic (app.kafka.topic): json or binary
+    @Value("${app.kafka.event-format:json}")
+    private String eventFormat;
+
     @Bean
-    public ProducerFactory<String, String> producerFactory() {
-        Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+    public EventCodec eventCodec(ObjectMapper objectMapper) {
+        if ("binary".equals(eventFormat)) {
+            return new BinaryEventCodec();
+        }
+        return new JsonEventCodec(objectMapper);
+    }
 
+    @Bean
+    public ProducerFactory<String, byte[]> producerFactory(MeterRegistry meterRegistry) {
+        Map<String, Object> configProps = baseProducerProperties(bootstrapServers);
 
         configProps.put("sasl.mechanism", saslMechanism);
         configProps.put("security.protocol", securityProtocol);
         configProps.put("sasl.jaas.config", saslJaasConfig);
 
+        if ("throughput".equals(producerProfile)) {
+            configProps.putAll(throughputProducerProperties());
+        }
+
+        DefaultKafkaProducerFactory<String, byte[]> factory = new DefaultKafkaProducerFactory<>(configProps);
+        // Producer client metrics (batch size, record queue time, request latency) as kafka.producer.*
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, byte[]> kafkaTemplate(ProducerFactory<String, byte[]> producerFactory) {
+        KafkaTemplate<String, byte[]> template = new KafkaTemplate<>(producerFactory);
+        // Send timer/span, and trace context propagated in the record headers
+        template.setObservationEnabled(true);
+        return template;
+    }
 
+    public static Map<String, Object> baseProducerProperties(String bootstrapServers) {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        // Values are encoded by the topic's EventCodec
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
         configProps.put(ProducerConfig.RETRIES_CONFIG, 5);
         configProps.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 30000);
         configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
-
-        return new DefaultKafkaProducerFactory<>(configProps);
+        return configProps;
     }
 
-    @Bean
-    public KafkaTemplate<String, String> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    // The relay sends whole outbox batches and flushes once, so a short linger fills batches without adding
+    // per-event latency. acks=all and at most 5 in-flight requests keep idempotence (and per-key ordering).
+    public static Map<String, Object> throughputProducerProperties() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION_CONFIG, 5);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 10);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 64L * 1024 * 1024);
+        return configProps;
     }
 }
\ No newline at end of file
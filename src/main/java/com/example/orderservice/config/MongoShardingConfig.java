@@ -0,0 +1,49 @@
+package com.example.orderservice.config;
+
+import com.example.orderservice.entity.Order;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoDatabase;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+
+/**
+ * Shards {@code orders} on the key declared on {@link Order} ({@code @Sharded}) at startup. Must point at a mongos.
+ * Re-running it against the already sharded collection is harmless.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class MongoShardingConfig {
+    // AlreadyInitialized: the collection is sharded with a different key
+    private static final int ALREADY_INITIALIZED = 23;
+
+    private final MongoTemplate mongoTemplate;
+
+    // After MongoIndexConfig, which creates the index backing the shard key
+    @EventListener(ApplicationReadyEvent.class)
+    public void shardOrders() {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(Order.class);
+        String database = mongoTemplate.getDb().getName();
+        String namespace = database + "." + entity.getCollection();
+        Document key = entity.getShardKey().getDocument();
+        MongoDatabase admin = mongoTemplate.getMongoDatabaseFactory().getMongoDatabase("admin");
+        try {
+            admin.runCommand(new Document("enableSharding", database));
+            admin.runCommand(new Document("shardCollection", namespace).append("key", key));
+            log.info("Sharded {} on {}", namespace, key.toJson());
+        } catch (MongoCommandException e) {
+            if (e.getErrorCode() != ALREADY_INITIALIZED) {
+                throw e;
+            }
+            log.warn("{} is already sharded with another key, keeping it: {}", namespace, e.getErrorMessage());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.orderservice.config;
+
+import com.example.orderservice.id.CustomerScopedOrderIdGenerator;
+import com.example.orderservice.id.OrderIdGenerator;
+import com.example.orderservice.id.RandomUuidOrderIdGenerator;
+import com.example.orderservice.id.TimeOrderedOrderIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class OrderIdConfig {
+
+    @Value("${app.order-id.strategy:time-ordered}")
+    private String strategy;
+
+    @Value("${app.order-id.customer-scoped:${app.sharding.enabled:false}}")
+    private boolean customerScoped;
+
+    // Only the format of new ids changes; stored orders keep theirs
+    @Bean
+    @ConditionalOnMissingBean
+    public OrderIdGenerator orderIdGenerator() {
+        OrderIdGenerator generator = switch (strategy) {
+            case "time-ordered" -> new TimeOrderedOrderIdGenerator();
+            case "uuid" -> new RandomUuidOrderIdGenerator();
+            default -> throw new IllegalArgumentException(
+                    "Unknown app.order-id.strategy '" + strategy + "', expected time-ordered or uuid");
+        };
+        // Scoped ids can target the customer's shard, at the cost of one insertion point per customer in the _id index
+        return customerScoped ? new CustomerScopedOrderIdGenerator(generator) : generator;
+    }
+}
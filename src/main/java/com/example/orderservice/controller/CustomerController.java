@@ -0,0 +1,32 @@
+package com.example.orderservice.controller;
+
+import com.example.orderservice.dto.CustomerSummaryDto;
+import com.example.orderservice.service.CustomerSummaryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/customers")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class CustomerController {
+    private final CustomerSummaryService summaryService;
+
+    // Counts per status, lifetime value and latest orders, from the customer_summaries read model
+    @GetMapping("/{customerId}/summary")
+    public ResponseEntity<CustomerSummaryDto> getSummary(@PathVariable String customerId) {
+        return ResponseEntity.ok(summaryService.getSummary(customerId));
+    }
+
+    @PostMapping("/summaries/rebuild")
+    public ResponseEntity<Void> rebuildSummaries() {
+        summaryService.rebuildAll();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,36 +1,147 @@
 package com.example.orderservice.controller;
 
+import com.example.orderservice.cache.OrderJson;
+import com.example.orderservice.dto.BatchResultDto;
+import com.example.orderservice.dto.BulkUpdateStatusDto;
 import com.example.orderservice.dto.CreateOrderDto;
 import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.dto.OrderStatsDto;
 import com.example.orderservice.dto.UpdateStatusDto;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.repository.OrderFilter;
+import com.example.orderservice.service.IdempotencyService;
+import com.example.orderservice.service.OrderAnalyticsService;
+import com.example.orderservice.service.OrderJsonWriter;
 import com.example.orderservice.service.OrderService;
+import com.example.orderservice.service.OrderStatsGrouping;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/orders")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 public class OrderController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final OrderService service;
+    private final OrderAnalyticsService analyticsService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.cache.order-json.enabled:false}")
+    private boolean orderJsonEnabled;
 
+    // With an Idempotency-Key, retries get the first response back instead of creating another order
     @PostMapping
-    public ResponseEntity<OrderResponseDto> create(@RequestBody CreateOrderDto dto) {
-        return ResponseEntity.ok(service.create(dto));
+    public ResponseEntity<OrderResponseDto> create(@RequestBody CreateOrderDto dto,
+                                                   @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(service.create(dto));
+        }
+        IdempotencyService.Result<OrderResponseDto> result = idempotencyService.execute(
+                "orders", idempotencyKey, dto, OrderResponseDto.class, () -> service.create(dto));
+        return ResponseEntity.ok()
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.replayed()))
+                .body(result.response());
+    }
+
+    // Accepts a JSON array or an NDJSON stream; orders are read incrementally from the request body
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BatchResultDto> createBatch(InputStream body) throws IOException {
+        try (MappingIterator<CreateOrderDto> orders = objectMapper.readerFor(CreateOrderDto.class).readValues(body)) {
+            return ResponseEntity.ok(service.createBatch(orders));
+        }
     }
 
+    // In order-json mode the cached body is written as is; If-None-Match with its ETag gets a 304
     @GetMapping("/{id}")
-    public ResponseEntity<OrderResponseDto> getById(@PathVariable String id) {
+    public ResponseEntity<?> getById(@PathVariable String id) {
+        if (orderJsonEnabled) {
+            OrderJson order = service.getJsonById(id);
+            return ResponseEntity.ok()
+                    .eTag(order.getEtag())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(order.getBody());
+        }
         return ResponseEntity.ok(service.getById(id));
     }
 
-    @GetMapping
-    public ResponseEntity<List<OrderResponseDto>> getFiltered(
+    // Orders are rendered straight from the entities by OrderJsonHttpMessageConverter, which only writes JSON:
+    // any other media type would fall through to a converter that serializes the whole entity, so it gets a 406
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<Order>> getFiltered(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        OrderService.OrderPage page = service.findFiltered(new OrderFilter(status, customerId, from, to), cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.orders());
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(
             @RequestParam(required = false) String status,
-            @RequestParam(required = false) String customerId) {
-        return ResponseEntity.ok(service.getFiltered(status, customerId));
+            @RequestParam(required = false) String customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        // Written from the entities without mapping them; the servlet container decides when to flush
+        StreamingResponseBody body = out -> {
+            try (Stream<Order> orders = service.streamFiltered(new OrderFilter(status, customerId, from, to));
+                 JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                OrderJsonWriter writer = new OrderJsonWriter(generator);
+                Iterator<Order> it = orders.iterator();
+                while (it.hasNext()) {
+                    writer.write(it.next());
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Counts and revenue grouped by status, customer, day or hour; computed in Mongo
+    @GetMapping("/analytics")
+    public ResponseEntity<List<OrderStatsDto>> analytics(
+            @RequestParam(defaultValue = "status") String groupBy,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(analyticsService.getStats(
+                new OrderFilter(status, customerId, from, to), OrderStatsGrouping.parse(groupBy)));
+    }
+
+    @PostMapping("/analytics/rollup")
+    public ResponseEntity<Void> rebuildStatsRollup() {
+        analyticsService.rebuildRollup();
+        return ResponseEntity.noContent().build();
     }
 
     @PatchMapping("/{id}/status")
@@ -38,6 +149,11 @@ public class OrderController {
         return ResponseEntity.ok(service.updateStatus(id, dto));
     }
 
+    @PatchMapping("/status")
+    public ResponseEntity<BatchResultDto> bulkUpdateStatus(@RequestBody BulkUpdateStatusDto dto) {
+        return ResponseEntity.ok(service.bulkUpdateStatus(dto));
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         // Chequea conexiones básicas (usa actuator para más detalles)
@@ -0,0 +1,108 @@
+package com.example.orderservice.controller;
+
+import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.service.OrderJsonWriter;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+/**
+ * Renders {@link Order}s and {@link OrderResponseDto}s, single or as a collection, with {@link OrderJsonWriter}
+ * ahead of the Jackson converter (Spring Boot puts converter beans first). Write-only; everything else,
+ * request bodies included, still goes through Jackson.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class OrderJsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final JsonFactory jsonFactory;
+
+    public OrderJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON);
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return isOrder(clazz);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        // The declared type for collections (erased at runtime), the value class otherwise (e.g. ResponseEntity<?>)
+        return (isOrder(clazz) || isOrders(type)) && canWrite(mediaType);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(outputMessage.getBody(), JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            OrderJsonWriter writer = new OrderJsonWriter(generator);
+            if (value instanceof Collection<?> orders) {
+                generator.writeStartArray();
+                for (Object order : orders) {
+                    write(generator, writer, order);
+                }
+                generator.writeEndArray();
+            } else {
+                write(generator, writer, value);
+            }
+        }
+    }
+
+    private static void write(JsonGenerator generator, OrderJsonWriter writer, Object order) throws IOException {
+        if (order == null) {
+            generator.writeNull();
+        } else if (order instanceof Order entity) {
+            writer.write(entity);
+        } else {
+            writer.write((OrderResponseDto) order);
+        }
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new UnsupportedOperationException("Write-only converter");
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new UnsupportedOperationException("Write-only converter");
+    }
+
+    private static boolean isOrders(Type type) {
+        if (type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() instanceof Class<?> raw && Collection.class.isAssignableFrom(raw)) {
+            Type element = parameterized.getActualTypeArguments()[0];
+            return element instanceof Class<?> elementClass && isOrder(elementClass);
+        }
+        return false;
+    }
+
+    private static boolean isOrder(Class<?> clazz) {
+        return clazz == Order.class || clazz == OrderResponseDto.class;
+    }
+}
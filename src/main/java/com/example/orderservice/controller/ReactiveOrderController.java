@@ -0,0 +1,76 @@
+package com.example.orderservice.controller;
+
+import com.example.orderservice.dto.CreateOrderDto;
+import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.dto.UpdateStatusDto;
+import com.example.orderservice.repository.OrderFilter;
+import com.example.orderservice.service.ReactiveOrderService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * WebFlux variant of {@link OrderController} with the same paths and JSON contracts.
+ * Enabled with spring.main.web-application-type=reactive.
+ */
+@RestController
+@RequestMapping("/orders")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveOrderController {
+    private final ReactiveOrderService service;
+
+    @PostMapping
+    public Mono<ResponseEntity<OrderResponseDto>> create(@RequestBody CreateOrderDto dto) {
+        return service.create(dto).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<OrderResponseDto>> getById(@PathVariable String id) {
+        return service.getById(id).map(ResponseEntity::ok);
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<OrderResponseDto>>> getFiltered(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return service.getFiltered(new OrderFilter(status, customerId, from, to), cursor, limit).map(page -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(OrderController.NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getItems());
+        });
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<OrderResponseDto> stream(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return service.streamFiltered(new OrderFilter(status, customerId, from, to));
+    }
+
+    @PatchMapping("/{id}/status")
+    public Mono<ResponseEntity<OrderResponseDto>> updateStatus(@PathVariable String id, @RequestBody UpdateStatusDto dto) {
+        return service.updateStatus(id, dto).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/health")
+    public Mono<ResponseEntity<String>> health() {
+        return Mono.just(ResponseEntity.ok("OK - Mongo, Redis, Kafka connected"));
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResultDto {
+    private int index;       // position in the request
+    private String id;
+    private String outcome;  // CREATED (POST /orders/batch) or UPDATED (PATCH /orders/status); FAILED
+    private String error;
+}
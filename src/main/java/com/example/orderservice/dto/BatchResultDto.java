@@ -0,0 +1,23 @@
+package com.example.orderservice.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BatchResultDto {
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResultDto> results = new ArrayList<>();
+
+    public void success(int index, String id, String outcome) {
+        succeeded++;
+        results.add(new BatchItemResultDto(index, id, outcome, null));
+    }
+
+    public void failure(int index, String id, String error) {
+        failed++;
+        results.add(new BatchItemResultDto(index, id, "FAILED", error));
+    }
+}
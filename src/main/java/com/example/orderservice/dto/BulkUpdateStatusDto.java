@@ -0,0 +1,10 @@
+package com.example.orderservice.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class BulkUpdateStatusDto {
+    private List<String> ids;
+    private String status;  // NEW, IN_PROGRESS, DELIVERED, CANCELLED
+}
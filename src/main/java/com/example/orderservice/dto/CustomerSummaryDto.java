@@ -0,0 +1,25 @@
+package com.example.orderservice.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class CustomerSummaryDto {
+    private String customerId;
+    private long orderCount;
+    private Map<String, Long> statusCounts;
+    private double lifetimeValue;
+    private List<RecentOrderDto> recentOrders;
+    private LocalDateTime updatedAt;
+
+    @Data
+    public static class RecentOrderDto {
+        private String orderId;
+        private String status;
+        private double total;
+        private LocalDateTime createdAt;
+    }
+}
@@ -12,4 +12,5 @@ public class OrderResponseDto {
     private List<ItemDto> items;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 }
\ No newline at end of file
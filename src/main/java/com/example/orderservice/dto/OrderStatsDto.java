@@ -0,0 +1,18 @@
+package com.example.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Order count and revenue (sum of price * quantity) for one group: a status, a customer
+ * or the start of a time bucket (ISO local date-time).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatsDto {
+    private String key;
+    private long count;
+    private double revenue;
+}
@@ -5,4 +5,5 @@ import lombok.Data;
 @Data
 public class UpdateStatusDto {
     private String status;  // NEW, IN_PROGRESS, DELIVERED, CANCELLED
+    private Long expectedVersion;  // Optional: reject the update if the order has changed since this version
 }
\ No newline at end of file
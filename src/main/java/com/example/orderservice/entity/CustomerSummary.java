@@ -0,0 +1,44 @@
+package com.example.orderservice.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Denormalized per-customer read model, maintained by CustomerSummaryService from the order writes
+@Data
+@Document(collection = "customer_summaries")
+public class CustomerSummary {
+    @Id
+    private String customerId;
+    @Field("orderCount")
+    private long orderCount;
+    @Field("statusCounts")
+    private Map<String, Long> statusCounts = new HashMap<>();
+    // Total of all orders that were not cancelled
+    @Field("lifetimeValue")
+    private double lifetimeValue;
+    // Newest first, capped at app.customer-summary.recent-orders
+    @Field("recentOrders")
+    private List<RecentOrder> recentOrders = new ArrayList<>();
+    @Field("updatedAt")
+    private LocalDateTime updatedAt;
+
+    @Data
+    public static class RecentOrder {
+        @Field("orderId")
+        private String orderId;
+        @Field("status")
+        private String status;
+        @Field("total")
+        private double total;
+        @Field("createdAt")
+        private LocalDateTime createdAt;
+    }
+}
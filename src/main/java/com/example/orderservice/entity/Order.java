@@ -2,17 +2,35 @@ package com.example.orderservice.entity;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.Sharded;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 @Data
 @Document(collection = "orders")
+// Equality fields first, then the keyset sort (createdAt, _id) so pages are read in index order
+@CompoundIndexes({
+        @CompoundIndex(name = "createdAt_id", def = "{'createdAt': 1, '_id': 1}"),
+        @CompoundIndex(name = "status_createdAt_id", def = "{'status': 1, 'createdAt': 1, '_id': 1}"),
+        @CompoundIndex(name = "customerId_createdAt_id", def = "{'customerId': 1, 'createdAt': 1, '_id': 1}"),
+        @CompoundIndex(name = "customerId_status_createdAt_id", def = "{'customerId': 1, 'status': 1, 'createdAt': 1, '_id': 1}"),
+        // Only orders with pending events are indexed, so the relay's poll stays cheap
+        @CompoundIndex(name = "outbox_pending", def = "{'outboxLeaseUntil': 1}",
+                partialFilter = "{'outbox.eventId': {'$exists': true}}")
+})
+// Shard key (see MongoShardingConfig): per-customer reads go to one shard and are read in the keyset order of
+// customerId_createdAt_id, which also backs the key. None of these fields change once the order is written.
+@Sharded(shardKey = {"customerId", "createdAt", "_id"}, immutableKey = true)
 public class Order {
+    // Assigned on first save by OrderIdAssigner; ids of older orders are random UUIDs
     @Id
-    private String id = UUID.randomUUID().toString();
+    private String id;
     @Field("customerId")
     private String customerId;
     @Field("status")
@@ -23,6 +41,16 @@ public class Order {
     private LocalDateTime createdAt = LocalDateTime.now();
     @Field("updatedAt")
     private LocalDateTime updatedAt = LocalDateTime.now();
+    // Incremented by every status change; clients may send it back as expectedVersion
+    @Version
+    @Field("version")
+    private Long version;
+    // Transactional outbox: events pending publication, drained by OrderEventRelay
+    @Field("outbox")
+    private List<OutboxEvent> outbox = new ArrayList<>();
+    // Events OrderEventRelay gave up on after app.outbox.max-attempts; kept for inspection and manual replay
+    @Field("outboxParked")
+    private List<OutboxEvent> outboxParked;
 
     @Data
     public static class Item {
@@ -33,4 +61,21 @@ public class Order {
         @Field("price")
         private double price;
     }
+
+    @Data
+    public static class OutboxEvent {
+        @Field("eventId")
+        private String eventId;
+        @Field("oldStatus")
+        private String oldStatus;
+        @Field("newStatus")
+        private String newStatus;
+        @Field("timestamp")
+        private LocalDateTime timestamp;
+        // Failed publish attempts so far and the last broker/serialization error; retried after the lease expires
+        @Field("attempts")
+        private int attempts;
+        @Field("lastError")
+        private String lastError;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.example.orderservice.event;
+
+import com.example.orderservice.dto.EventDto;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Compact event encoding: a schema version byte, the order id, one byte per known status
+ * and the timestamp as epoch millis. Decoders must reject schema versions they do not know.
+ */
+public class BinaryEventCodec implements EventCodec {
+    public static final String CONTENT_TYPE = "application/vnd.order-event+binary";
+    static final byte SCHEMA_VERSION = 1;
+    // Part of the schema: codes are list positions, so only append. Decoders that predate an appended code
+    // reject events carrying it; until every consumer knows it, a new status can go out as OTHER_STATUS
+    static final List<String> STATUS_CODES = List.of("NEW", "IN_PROGRESS", "DELIVERED", "CANCELLED");
+    private static final byte NULL_STATUS = -1;
+    private static final byte OTHER_STATUS = -2;
+    private static final long NULL_TIMESTAMP = Long.MIN_VALUE;
+
+    private final ZoneId zone;
+
+    public BinaryEventCodec() {
+        // EventDto timestamps are local date-times in the service's zone
+        this(ZoneId.systemDefault());
+    }
+
+    BinaryEventCodec(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    @Override
+    public String contentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public byte[] encode(EventDto event) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(SCHEMA_VERSION);
+            out.writeUTF(event.getOrderId());
+            writeStatus(out, event.getOldStatus());
+            writeStatus(out, event.getNewStatus());
+            out.writeLong(event.getTimestamp() == null ? NULL_TIMESTAMP : epochMillis(event.getTimestamp()));
+        } catch (IOException e) {
+            throw new SerializationException("Could not write binary event", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public EventDto decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != SCHEMA_VERSION) {
+                throw new SerializationException("Unsupported event schema version " + version);
+            }
+            EventDto event = new EventDto();
+            event.setOrderId(in.readUTF());
+            event.setOldStatus(readStatus(in));
+            event.setNewStatus(readStatus(in));
+            long millis = in.readLong();
+            event.setTimestamp(millis == NULL_TIMESTAMP ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone));
+            return event;
+        } catch (IOException e) {
+            throw new SerializationException("Could not read binary event", e);
+        }
+    }
+
+    public long epochMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private static void writeStatus(DataOutputStream out, String status) throws IOException {
+        if (status == null) {
+            out.writeByte(NULL_STATUS);
+            return;
+        }
+        int code = STATUS_CODES.indexOf(status);
+        if (code >= 0) {
+            out.writeByte(code);
+        } else {
+            out.writeByte(OTHER_STATUS);
+            out.writeUTF(status);
+        }
+    }
+
+    private static String readStatus(DataInputStream in) throws IOException {
+        byte code = in.readByte();
+        if (code == NULL_STATUS) {
+            return null;
+        }
+        if (code == OTHER_STATUS) {
+            return in.readUTF();
+        }
+        if (code < 0 || code >= STATUS_CODES.size()) {
+            throw new SerializationException("Unknown status code " + code);
+        }
+        return STATUS_CODES.get(code);
+    }
+}
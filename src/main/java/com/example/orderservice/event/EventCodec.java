@@ -0,0 +1,17 @@
+package com.example.orderservice.event;
+
+import com.example.orderservice.dto.EventDto;
+
+/**
+ * Wire format of order events. The producer stamps {@link #CONTENT_TYPE_HEADER} on every record
+ * so consumers can pick the matching codec; records without the header are JSON.
+ */
+public interface EventCodec {
+    String CONTENT_TYPE_HEADER = "contentType";
+
+    String contentType();
+
+    byte[] encode(EventDto event);
+
+    EventDto decode(byte[] bytes);
+}
@@ -0,0 +1,43 @@
+package com.example.orderservice.event;
+
+import com.example.orderservice.dto.EventDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.io.IOException;
+
+/**
+ * The original format: UTF-8 JSON, byte-for-byte what was sent as a String before.
+ */
+public class JsonEventCodec implements EventCodec {
+    public static final String CONTENT_TYPE = "application/json";
+
+    private final ObjectMapper objectMapper;
+
+    public JsonEventCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String contentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public byte[] encode(EventDto event) {
+        try {
+            return objectMapper.writeValueAsBytes(event);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write event as JSON", e);
+        }
+    }
+
+    @Override
+    public EventDto decode(byte[] bytes) {
+        try {
+            return objectMapper.readValue(bytes, EventDto.class);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read JSON event", e);
+        }
+    }
+}
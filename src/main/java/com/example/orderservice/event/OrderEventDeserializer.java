@@ -0,0 +1,62 @@
+package com.example.orderservice.event;
+
+import com.example.orderservice.dto.EventDto;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.Map;
+
+/**
+ * Kafka deserializer for consumers of orders.events: picks the codec from the content-type header,
+ * so JSON and binary records can be mixed on the same topic during a rollout. Can be set as
+ * {@code value.deserializer}; binary timestamps are read in the consumer's zone unless {@link #ZONE_CONFIG} is set.
+ */
+public class OrderEventDeserializer implements Deserializer<EventDto> {
+    // Zone of the producing service, e.g. "Europe/Madrid"
+    public static final String ZONE_CONFIG = "order.events.zone";
+
+    private final EventCodec jsonCodec;
+    private EventCodec binaryCodec;
+
+    public OrderEventDeserializer() {
+        this(new JsonEventCodec(new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)), new BinaryEventCodec());
+    }
+
+    public OrderEventDeserializer(EventCodec jsonCodec, EventCodec binaryCodec) {
+        this.jsonCodec = jsonCodec;
+        this.binaryCodec = binaryCodec;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object zone = configs.get(ZONE_CONFIG);
+        if (zone != null) {
+            binaryCodec = new BinaryEventCodec(ZoneId.of(zone.toString()));
+        }
+    }
+
+    @Override
+    public EventDto deserialize(String topic, byte[] data) {
+        return data == null ? null : jsonCodec.decode(data);
+    }
+
+    @Override
+    public EventDto deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        Header contentType = headers.lastHeader(EventCodec.CONTENT_TYPE_HEADER);
+        if (contentType != null && BinaryEventCodec.CONTENT_TYPE.equals(new String(contentType.value(), StandardCharsets.UTF_8))) {
+            return binaryCodec.decode(data);
+        }
+        return jsonCodec.decode(data);
+    }
+}
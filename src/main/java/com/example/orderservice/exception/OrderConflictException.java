@@ -0,0 +1,15 @@
+package com.example.orderservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The order exists but its current state does not allow the requested change:
+ * a transition the state machine forbids, or a stale expected version.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class OrderConflictException extends RuntimeException {
+    public OrderConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.orderservice.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Sheds load with 503 + Retry-After instead of letting requests queue up.
+ * A request is rejected when the in-flight limit is reached, or probabilistically once the
+ * smoothed request latency (dominated by Mongo/Redis I/O) exceeds the latency budget. Batch, bulk and
+ * streaming requests are admitted the same way but left out of the latency estimate.
+ */
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private static final double EWMA_ALPHA = 0.2;
+    // Always admit some requests so the latency estimate can recover
+    private static final double MAX_SHED_PROBABILITY = 0.9;
+    // Their duration grows with the input or result size rather than with backend latency, so timing them
+    // would push the estimate past the budget and shed unrelated short requests
+    private static final Set<String> UNTIMED = Set.of(
+            "POST /orders/batch", "PATCH /orders/status", "GET /orders/stream", "POST /orders/analytics/rollup");
+
+    private final int maxConcurrent;
+    private final double latencyBudgetNanos;
+    private final DoubleSupplier random;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong latencyEwmaBits = new AtomicLong(Double.doubleToLongBits(0));
+    private final Counter shedOverload;
+    private final Counter shedLatency;
+
+    public AdmissionControlFilter(int maxConcurrent, Duration latencyBudget, MeterRegistry meterRegistry) {
+        this(maxConcurrent, latencyBudget, meterRegistry, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    AdmissionControlFilter(int maxConcurrent, Duration latencyBudget, MeterRegistry meterRegistry, DoubleSupplier random) {
+        this.maxConcurrent = maxConcurrent;
+        this.latencyBudgetNanos = latencyBudget.toNanos();
+        this.random = random;
+        this.shedOverload = shedCounter(meterRegistry, "concurrency");
+        this.shedLatency = shedCounter(meterRegistry, "latency");
+        meterRegistry.gauge("http.admission.in_flight", inFlight);
+    }
+
+    private static Counter shedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("http.admission.shed")
+                .description("Requests rejected by admission control")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().endsWith("/health");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        double latencyEwma = latencyEwma();
+        if (latencyEwma > latencyBudgetNanos) {
+            double shedProbability = Math.min(MAX_SHED_PROBABILITY, (latencyEwma - latencyBudgetNanos) / latencyBudgetNanos);
+            if (random.getAsDouble() < shedProbability) {
+                shedLatency.increment();
+                reject(response, latencyEwma);
+                return;
+            }
+        }
+        if (inFlight.incrementAndGet() > maxConcurrent) {
+            inFlight.decrementAndGet();
+            shedOverload.increment();
+            reject(response, latencyEwma);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            inFlight.decrementAndGet();
+            if (isTimed(request)) {
+                recordLatency(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static boolean isTimed(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !UNTIMED.contains(request.getMethod() + " " + path);
+    }
+
+    double latencyEwma() {
+        return Double.longBitsToDouble(latencyEwmaBits.get());
+    }
+
+    void recordLatency(long nanos) {
+        long current;
+        long next;
+        do {
+            current = latencyEwmaBits.get();
+            double previous = Double.longBitsToDouble(current);
+            double updated = previous == 0 ? nanos : previous + EWMA_ALPHA * (nanos - previous);
+            next = Double.doubleToLongBits(updated);
+        } while (!latencyEwmaBits.compareAndSet(current, next));
+    }
+
+    private void reject(HttpServletResponse response, double latencyEwma) {
+        long retryAfterSeconds = Math.max(1, (long) Math.ceil(latencyEwma / 1_000_000_000d));
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        log.debug("Shedding request, in flight {}, latency ewma {} ms", inFlight.get(), (long) (latencyEwma / 1_000_000));
+    }
+}
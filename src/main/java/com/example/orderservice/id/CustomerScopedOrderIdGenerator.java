@@ -0,0 +1,20 @@
+package com.example.orderservice.id;
+
+/**
+ * {@code <customerId as URL-safe base64>.<id from the delegate>}: lookups by id can be routed to the customer's shard
+ * (see {@link OrderIds}).
+ */
+public class CustomerScopedOrderIdGenerator implements OrderIdGenerator {
+    private final OrderIdGenerator suffixes;
+
+    public CustomerScopedOrderIdGenerator(OrderIdGenerator suffixes) {
+        this.suffixes = suffixes;
+    }
+
+    @Override
+    public String newId(String customerId) {
+        String suffix = suffixes.newId(customerId);
+        // Without a customer there is nothing to route on
+        return customerId == null || customerId.isEmpty() ? suffix : OrderIds.scoped(customerId, suffix);
+    }
+}
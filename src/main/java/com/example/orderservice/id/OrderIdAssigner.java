@@ -0,0 +1,24 @@
+package com.example.orderservice.id;
+
+import com.example.orderservice.entity.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gives new orders an id from the {@link OrderIdGenerator} before they are written, on every blocking write
+ * path (repository, template and bulk inserts; see {@link ReactiveOrderIdAssigner}). Orders that have an id keep it.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderIdAssigner implements BeforeConvertCallback<Order> {
+    private final OrderIdGenerator generator;
+
+    @Override
+    public Order onBeforeConvert(Order order, String collection) {
+        if (order.getId() == null) {
+            order.setId(generator.newId(order.getCustomerId()));
+        }
+        return order;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.orderservice.id;
+
+/**
+ * Strategy for the ids of new orders, assigned by {@link OrderIdAssigner} on first save.
+ * Ids are opaque to clients; orders already stored keep whatever id they were given.
+ */
+public interface OrderIdGenerator {
+
+    String newId(String customerId);
+}
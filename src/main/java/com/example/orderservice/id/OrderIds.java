@@ -0,0 +1,89 @@
+package com.example.orderservice.id;
+
+import com.example.orderservice.entity.Order;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Customer-scoped order ids ({@code <customerId as URL-safe base64>.<suffix>}) and the criteria that route on them.
+ * {@code orders} is sharded on {@code customerId}, so a lookup that also names the customer is sent to
+ * the shard owning it instead of every shard. The prefix is encoded because {@code customerId} is free-form: ids stay
+ * routable in {@code /orders/{id}} whatever it contains, and do not show it in plain text. Ids without such a
+ * prefix (e.g. older random UUIDs) are still matched, by {@code _id} alone. A findAndModify must name the whole shard key before Mongo 7.1, which
+ * no id carries; {@link #shardKeyQuery} reads it so {@link #shardKey} can target the one document.
+ */
+public final class OrderIds {
+    // Neither part of the base64url alphabet nor of a generated suffix, so the first one splits the id
+    public static final char SEPARATOR = '.';
+    private static final Base64.Encoder PREFIX_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder PREFIX_DECODER = Base64.getUrlDecoder();
+
+    private OrderIds() {
+    }
+
+    public static String scoped(String customerId, String suffix) {
+        return PREFIX_ENCODER.encodeToString(customerId.getBytes(StandardCharsets.UTF_8)) + SEPARATOR + suffix;
+    }
+
+    public static Optional<String> customerId(String orderId) {
+        if (orderId == null) {
+            return Optional.empty();
+        }
+        int separator = orderId.indexOf(SEPARATOR);
+        return separator <= 0 ? Optional.empty() : decode(orderId.substring(0, separator));
+    }
+
+    // Only a prefix that re-encodes to itself routes; anything else is matched by _id alone
+    private static Optional<String> decode(String prefix) {
+        try {
+            String customerId = new String(PREFIX_DECODER.decode(prefix), StandardCharsets.UTF_8);
+            return PREFIX_ENCODER.encodeToString(customerId.getBytes(StandardCharsets.UTF_8)).equals(prefix)
+                    ? Optional.of(customerId) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    // _id equality, plus the shard key when the id carries it
+    public static Criteria where(String orderId) {
+        Criteria criteria = Criteria.where("_id").is(orderId);
+        customerId(orderId).ifPresent(customerId -> criteria.and("customerId").is(customerId));
+        return criteria;
+    }
+
+    // customerId and createdAt of the order; the shard key is immutable, so it stays valid for later writes
+    public static Query shardKeyQuery(String orderId) {
+        Query query = Query.query(where(orderId));
+        query.fields().include("customerId", "createdAt");
+        return query;
+    }
+
+    // Equality on every shard key field ({customerId, createdAt, _id}) of a stored order
+    public static Criteria shardKey(Order order) {
+        return Criteria.where("_id").is(order.getId())
+                .and("customerId").is(order.getCustomerId())
+                .and("createdAt").is(order.getCreatedAt());
+    }
+
+    // _id in ids, plus customerId in their customers when every id carries one (targets only those shards)
+    public static Criteria whereIn(Collection<String> orderIds) {
+        Criteria criteria = Criteria.where("_id").in(orderIds);
+        Set<String> customerIds = new LinkedHashSet<>();
+        for (String orderId : orderIds) {
+            Optional<String> customerId = customerId(orderId);
+            if (customerId.isEmpty()) {
+                return criteria;
+            }
+            customerIds.add(customerId.get());
+        }
+        return customerIds.isEmpty() ? criteria : criteria.and("customerId").in(new ArrayList<>(customerIds));
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.orderservice.id;
+
+import java.util.UUID;
+
+// The original ids: random 36-character UUIDs, spread over the whole _id index
+public class RandomUuidOrderIdGenerator implements OrderIdGenerator {
+
+    @Override
+    public String newId(String customerId) {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.orderservice.id;
+
+import com.example.orderservice.entity.Order;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+// Same as OrderIdAssigner for the reactive repository and template
+@Component
+@RequiredArgsConstructor
+public class ReactiveOrderIdAssigner implements ReactiveBeforeConvertCallback<Order> {
+    private final OrderIdAssigner assigner;
+
+    @Override
+    public Publisher<Order> onBeforeConvert(Order order, String collection) {
+        return Mono.just(assigner.onBeforeConvert(order, collection));
+    }
+}
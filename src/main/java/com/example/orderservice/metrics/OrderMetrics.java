@@ -0,0 +1,66 @@
+package com.example.orderservice.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Per-phase timings of the order hot paths. Mongo phases are observations, so each one is both
+ * a timer and a child span of the current request, and shows up under its trace id.
+ */
+@Component
+public class OrderMetrics {
+    private final ObservationRegistry observationRegistry;
+    private final Timer publishAcked;
+    private final Timer publishFailed;
+    private final Timer outboxLag;
+    private final Counter outboxParked;
+
+    public OrderMetrics(ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+        this.observationRegistry = observationRegistry;
+        this.publishAcked = publishTimer(meterRegistry, "acked");
+        this.publishFailed = publishTimer(meterRegistry, "failed");
+        this.outboxLag = Timer.builder("order.outbox.lag")
+                .description("Time from the status change to the Kafka ack of its event")
+                .register(meterRegistry);
+        this.outboxParked = Counter.builder("order.outbox.parked")
+                .description("Outbox events given up on after max-attempts failed sends")
+                .register(meterRegistry);
+    }
+
+    private static Timer publishTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("order.outbox.publish")
+                .description("Kafka send to broker ack, per outbox event")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // Recorded as order.mongo{operation}
+    public <T> T mongo(String operation, Supplier<T> call) {
+        return Observation.createNotStarted("order.mongo", observationRegistry)
+                .lowCardinalityKeyValue("operation", operation)
+                .observe(call);
+    }
+
+    public void recordPublish(long startNanos, boolean acked) {
+        (acked ? publishAcked : publishFailed).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordOutboxParked() {
+        outboxParked.increment();
+    }
+
+    public void recordOutboxLag(LocalDateTime queuedAt) {
+        if (queuedAt != null) {
+            outboxLag.record(Duration.between(queuedAt, LocalDateTime.now()));
+        }
+    }
+}
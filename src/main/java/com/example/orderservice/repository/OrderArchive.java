@@ -0,0 +1,362 @@
+package com.example.orderservice.repository;
+
+import com.example.orderservice.entity.Order;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Archived orders, one collection per creation month ({@code orders_archive_2024_01}), zstd-compressed and
+ * indexed only for the keyset reads. Orders land here in terminal states, so buckets are append-only.
+ * Reads that may match archived orders are answered from the hot collection and the buckets overlapping
+ * the filter; buckets hold disjoint time ranges, so together they are already in keyset order.
+ */
+@Repository
+@Slf4j
+public class OrderArchive {
+    public static final Set<String> ARCHIVED_STATUSES = Set.of("DELIVERED", "CANCELLED");
+    static final String PREFIX = "orders_archive_";
+    // As Mongo sorts: a missing or null createdAt first
+    static final Comparator<Order> KEYSET_ORDER = Comparator.comparing(Order::getCreatedAt,
+            Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder())).thenComparing(Order::getId);
+    // Misses re-list the buckets at most this often, so lookups of unknown ids stay one query
+    private static final Duration MISS_REFRESH_INTERVAL = Duration.ofSeconds(1);
+    private static final DateTimeFormatter BUCKET_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+    // Leftovers of the hot documents that mean nothing once archived
+    private static final List<String> HOT_ONLY_FIELDS = List.of("_class", "outbox", "outboxLeaseOwner", "outboxLeaseUntil",
+            "outboxExternalChangeTime");
+    private static final String HOT_COPY = "_hotCopy";
+
+    private final MongoTemplate mongoTemplate;
+    private final QueryMapper queryMapper;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Other nodes' archivers create buckets too; a new one is seen after at most this long
+    @Value("${app.archive.bucket-refresh:30s}")
+    private Duration bucketRefresh = Duration.ofSeconds(30);
+
+    private volatile List<Bucket> buckets;
+    private volatile long bucketsLoadedAt;
+
+    public OrderArchive(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        this.queryMapper = new QueryMapper(mongoTemplate.getConverter());
+    }
+
+    public record Bucket(String collection, YearMonth month) {
+        LocalDateTime start() {
+            return month.atDay(1).atStartOfDay();
+        }
+
+        LocalDateTime end() {
+            return month.plusMonths(1).atDay(1).atStartOfDay();
+        }
+    }
+
+    // Oldest first
+    public List<Bucket> buckets() {
+        List<Bucket> current = buckets;
+        if (current == null || System.nanoTime() - bucketsLoadedAt > bucketRefresh.toNanos()) {
+            current = refreshBuckets();
+        }
+        return current;
+    }
+
+    public List<Bucket> refreshBuckets() {
+        List<Bucket> found = mongoTemplate.getCollectionNames().stream()
+                .filter(name -> name.startsWith(PREFIX))
+                .map(name -> new Bucket(name, YearMonth.parse(name.substring(PREFIX.length()), BUCKET_FORMAT)))
+                .sorted(Comparator.comparing(Bucket::month))
+                .toList();
+        buckets = found;
+        bucketsLoadedAt = System.nanoTime();
+        return found;
+    }
+
+    public Optional<Order> findById(String id) {
+        Optional<Order> order = findById(id, buckets());
+        if (order.isEmpty() && System.nanoTime() - bucketsLoadedAt > MISS_REFRESH_INTERVAL.toNanos()) {
+            // The order may have just been moved to a bucket this node has not seen yet
+            List<Bucket> known = buckets;
+            List<Bucket> refreshed = refreshBuckets();
+            if (!refreshed.equals(known)) {
+                order = findById(id, refreshed);
+            }
+        }
+        return order;
+    }
+
+    // One round trip whatever the number of buckets: an _id lookup per bucket, chained with $unionWith
+    private Optional<Order> findById(String id, List<Bucket> candidates) {
+        if (candidates.isEmpty()) {
+            return Optional.empty();
+        }
+        // Mapped so that ids stored as ObjectId match
+        Document match = new Document("$match", queryMapper.getMappedObject(new Document("_id", id), orderEntity()));
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(context -> match);
+        for (Bucket bucket : candidates.subList(1, candidates.size())) {
+            Document union = new Document("$unionWith", new Document("coll", bucket.collection()).append("pipeline", List.of(match)));
+            stages.add(context -> union);
+        }
+        stages.add(Aggregation.limit(1));
+        return mongoTemplate.aggregate(Aggregation.newAggregation(stages), candidates.get(0).collection(), Order.class)
+                .getMappedResults().stream().findFirst();
+    }
+
+    // The first `limit` archived orders after the cursor; buckets starting after `upTo` are not read
+    public List<Order> findPage(OrderFilter filter, OrderCursor after, int limit, LocalDateTime upTo) {
+        List<Order> page = new ArrayList<>();
+        for (Bucket bucket : candidates(filter, after)) {
+            if (page.size() >= limit || (upTo != null && bucket.start().isAfter(upTo))) {
+                break;
+            }
+            page.addAll(mongoTemplate.find(OrderQueries.pageQuery(filter, after, limit - page.size()), Order.class,
+                    bucket.collection()));
+        }
+        return page;
+    }
+
+    // Lazily walks the overlapping buckets in order, one open cursor at a time; callers must close the stream
+    public Stream<Order> stream(OrderFilter filter) {
+        Iterator<Bucket> remaining = candidates(filter, null).iterator();
+        AtomicReference<Stream<Order>> current = new AtomicReference<>();
+        Iterator<Order> orders = new Iterator<>() {
+            private Iterator<Order> cursor = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!cursor.hasNext() && remaining.hasNext()) {
+                    closeCurrent(current);
+                    Stream<Order> next = mongoTemplate.stream(OrderQueries.streamQuery(filter), Order.class,
+                            remaining.next().collection());
+                    current.set(next);
+                    cursor = next.iterator();
+                }
+                return cursor.hasNext();
+            }
+
+            @Override
+            public Order next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return cursor.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(orders, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> closeCurrent(current));
+    }
+
+    private static void closeCurrent(AtomicReference<Stream<Order>> current) {
+        Stream<Order> stream = current.getAndSet(null);
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * $unionWith stages adding the archived orders matching the filter to a pipeline over the hot collection,
+     * e.g. right after its own $match. Only the buckets overlapping the filter are read, and archived copies of
+     * orders still in the hot collection are left out, so none is counted twice.
+     */
+    public List<AggregationOperation> unionWith(OrderFilter filter) {
+        return unionWith(candidates(filter, null), filter.toCriteria());
+    }
+
+    // Same over every bucket, for criteria that say nothing about the creation time
+    public List<AggregationOperation> unionWith(Criteria criteria) {
+        return unionWith(buckets(), criteria);
+    }
+
+    private List<AggregationOperation> unionWith(List<Bucket> candidates, Criteria criteria) {
+        // Mapped like a query on Order, so LocalDateTime values and field names match the stored form
+        Document mapped = queryMapper.getMappedObject(criteria.getCriteriaObject(), orderEntity());
+        List<Document> pipeline = new ArrayList<>();
+        if (!mapped.isEmpty()) {
+            pipeline.add(new Document("$match", mapped));
+        }
+        // Anti-join: an order still in the hot collection (archiver stopped between upsert and delete) is
+        // already counted by the outer pipeline. One _id index probe per archived match.
+        pipeline.add(new Document("$lookup", new Document("from", mongoTemplate.getCollectionName(Order.class))
+                .append("localField", "_id")
+                .append("foreignField", "_id")
+                .append("pipeline", List.of(new Document("$project", new Document("_id", 1))))
+                .append("as", HOT_COPY)));
+        pipeline.add(new Document("$match", new Document(HOT_COPY, new Document("$size", 0))));
+        pipeline.add(new Document("$unset", HOT_COPY));
+        List<AggregationOperation> stages = new ArrayList<>();
+        for (Bucket bucket : candidates) {
+            Document union = new Document("$unionWith", new Document("coll", bucket.collection()).append("pipeline", pipeline));
+            stages.add(context -> union);
+        }
+        return stages;
+    }
+
+    /**
+     * Upserts the given hot documents into their buckets (idempotent, so an interrupted run can be repeated)
+     * and returns the ids written. Removing them from the hot collection is up to the caller.
+     */
+    public List<Object> archive(List<Document> orders) {
+        Map<YearMonth, List<ReplaceOneModel<Document>>> writes = new LinkedHashMap<>();
+        List<Object> ids = new ArrayList<>(orders.size());
+        for (Document order : orders) {
+            Document compact = new Document(order);
+            HOT_ONLY_FIELDS.forEach(compact::remove);
+            YearMonth month = YearMonth.from(LocalDateTime.ofInstant(order.getDate("createdAt").toInstant(), zone));
+            writes.computeIfAbsent(month, m -> new ArrayList<>()).add(new ReplaceOneModel<>(
+                    new Document("_id", order.get("_id")), compact, new ReplaceOptions().upsert(true)));
+            ids.add(order.get("_id"));
+        }
+        Set<String> known = new HashSet<>(buckets().stream().map(Bucket::collection).toList());
+        boolean created = false;
+        for (Map.Entry<YearMonth, List<ReplaceOneModel<Document>>> bucket : writes.entrySet()) {
+            String collection = collectionName(bucket.getKey());
+            if (!known.contains(collection)) {
+                createBucket(collection);
+                created = true;
+            }
+            mongoTemplate.getCollection(collection).bulkWrite(bucket.getValue(), new BulkWriteOptions().ordered(false));
+        }
+        if (created) {
+            refreshBuckets();
+        }
+        return ids;
+    }
+
+    private MongoPersistentEntity<?> orderEntity() {
+        return mongoTemplate.getConverter().getMappingContext().getPersistentEntity(Order.class);
+    }
+
+    public static String collectionName(YearMonth month) {
+        return PREFIX + month.format(BUCKET_FORMAT);
+    }
+
+    private void createBucket(String collection) {
+        try {
+            mongoTemplate.executeCommand(new Document("create", collection)
+                    .append("storageEngine", new Document("wiredTiger",
+                            new Document("configString", "block_compressor=zstd"))));
+            log.info("Created order archive bucket {}", collection);
+        } catch (MongoCommandException e) {
+            // NamespaceExists: another node created it first
+            if (e.getErrorCode() != 48) {
+                throw e;
+            }
+        }
+        mongoTemplate.indexOps(collection).ensureIndex(new Index()
+                .on("createdAt", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named("createdAt_id"));
+        mongoTemplate.indexOps(collection).ensureIndex(new Index()
+                .on("customerId", Sort.Direction.ASC).on("createdAt", Sort.Direction.ASC).on("_id", Sort.Direction.ASC)
+                .named("customerId_createdAt_id"));
+    }
+
+    // Buckets that can hold matches: terminal (or any) status, overlapping the creation range and the cursor
+    private List<Bucket> candidates(OrderFilter filter, OrderCursor after) {
+        if (filter.getStatus() != null && !ARCHIVED_STATUSES.contains(filter.getStatus())) {
+            return List.of();
+        }
+        return buckets().stream()
+                .filter(bucket -> filter.getFrom() == null || bucket.end().isAfter(filter.getFrom()))
+                .filter(bucket -> filter.getTo() == null || bucket.start().isBefore(filter.getTo()))
+                .filter(bucket -> after == null || after.getCreatedAt() == null || bucket.end().isAfter(after.getCreatedAt()))
+                .toList();
+    }
+
+    /**
+     * Merges a hot and an archived page, both in keyset order, into the first {@code limit} orders.
+     * An order found in both (archived but not yet removed from the hot collection) is taken from the hot one.
+     */
+    public static List<Order> merge(List<Order> hot, List<Order> archived, int limit) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<Order> merged = new ArrayList<>(Math.min(limit, hot.size() + archived.size()));
+        merge(hot.iterator(), archived.iterator()).forEachRemaining(order -> {
+            if (merged.size() < limit) {
+                merged.add(order);
+            }
+        });
+        return merged;
+    }
+
+    // Lazy two-way merge of keyset-ordered streams; closing the result closes both
+    public static Stream<Order> merge(Stream<Order> hot, Stream<Order> archived) {
+        Iterator<Order> merged = merge(hot.iterator(), archived.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        hot.close();
+                    } finally {
+                        archived.close();
+                    }
+                });
+    }
+
+    private static Iterator<Order> merge(Iterator<Order> hot, Iterator<Order> archived) {
+        return new Iterator<>() {
+            private Order nextHot = hot.hasNext() ? hot.next() : null;
+            private Order nextArchived = archived.hasNext() ? archived.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextHot != null || nextArchived != null;
+            }
+
+            @Override
+            public Order next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int order = nextHot == null ? 1 : nextArchived == null ? -1 : KEYSET_ORDER.compare(nextHot, nextArchived);
+                Order result;
+                if (order <= 0) {
+                    result = nextHot;
+                    if (order == 0) {
+                        nextArchived = archived.hasNext() ? archived.next() : null;
+                    }
+                    nextHot = hot.hasNext() ? hot.next() : null;
+                } else {
+                    result = nextArchived;
+                    nextArchived = archived.hasNext() ? archived.next() : null;
+                }
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.orderservice.repository;
+
+import com.example.orderservice.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position in the (createdAt, _id) ordering, exposed to clients as an opaque token.
+ * A null createdAt is a position before every dated order, as Mongo sorts a missing or null value first.
+ */
+@Data
+@AllArgsConstructor
+public class OrderCursor {
+    private static final char SEPARATOR = '|';
+    // Never a LocalDateTime.toString() value
+    private static final String NO_CREATED_AT = "null";
+
+    private LocalDateTime createdAt;
+    private String id;
+
+    public static OrderCursor after(Order order) {
+        return new OrderCursor(order.getCreatedAt(), order.getId());
+    }
+
+    public String encode() {
+        String raw = (createdAt == null ? NO_CREATED_AT : createdAt.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            String createdAt = raw.substring(0, separator);
+            return new OrderCursor(NO_CREATED_AT.equals(createdAt) ? null : LocalDateTime.parse(createdAt),
+                    raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.orderservice.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Optional criteria for listing orders; null fields are not applied.
+ * The creation range is half-open: {@code from <= createdAt < to}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderFilter {
+    private String status;
+    private String customerId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    public static OrderFilter of(String status, String customerId) {
+        return new OrderFilter(status, customerId, null, null);
+    }
+
+    public void validate() {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+    }
+
+    // One criteria per filtered field
+    public List<Criteria> criteria() {
+        List<Criteria> criteria = new ArrayList<>();
+        if (status != null) {
+            criteria.add(Criteria.where("status").is(status));
+        }
+        if (customerId != null) {
+            criteria.add(Criteria.where("customerId").is(customerId));
+        }
+        if (from != null || to != null) {
+            Criteria createdAt = Criteria.where("createdAt");
+            if (from != null) {
+                createdAt.gte(from);
+            }
+            if (to != null) {
+                createdAt.lt(to);
+            }
+            criteria.add(createdAt);
+        }
+        return criteria;
+    }
+
+    // All criteria combined, e.g. for an aggregation $match
+    public Criteria toCriteria() {
+        List<Criteria> criteria = criteria();
+        return criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.orderservice.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Filter and keyset query shapes shared by the blocking and reactive repositories.
+ * Every shape is served by one of the compound indexes declared on {@link com.example.orderservice.entity.Order}:
+ * equality fields first, then {@code createdAt, _id} so the keyset sort never needs an in-memory sort.
+ */
+final class OrderQueries {
+    static final Sort KEYSET_SORT = Sort.by(Sort.Direction.ASC, "createdAt", "_id");
+    static final int STREAM_BATCH_SIZE = 500;
+
+    private OrderQueries() {
+    }
+
+    static Query filterQuery(OrderFilter filter) {
+        Query query = new Query();
+        filter.criteria().forEach(query::addCriteria);
+        return query;
+    }
+
+    static Query pageQuery(OrderFilter filter, OrderCursor after, int limit) {
+        Query query = filterQuery(filter);
+        if (after != null) {
+            // Mongo sorts a missing or null createdAt before any date, so after such an order every dated one follows
+            Criteria later = after.getCreatedAt() == null
+                    ? Criteria.where("createdAt").ne(null)
+                    : Criteria.where("createdAt").gt(after.getCreatedAt());
+            query.addCriteria(new Criteria().orOperator(
+                    later,
+                    Criteria.where("createdAt").is(after.getCreatedAt()).and("_id").gt(after.getId())));
+        }
+        return query.with(KEYSET_SORT).limit(limit);
+    }
+
+    static Query streamQuery(OrderFilter filter) {
+        return filterQuery(filter).with(KEYSET_SORT).cursorBatchSize(STREAM_BATCH_SIZE);
+    }
+}
@@ -7,9 +7,9 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface OrderRepository extends MongoRepository<Order, String> {
+public interface OrderRepository extends MongoRepository<Order, String>, OrderRepositoryCustom {
     List<Order> findByStatusAndCustomerId(String status, String customerId);
 
     @Query("{ 'status': ?0 }")
     List<Order> findByStatus(String status);
-}
\ No newline at end of file
+}
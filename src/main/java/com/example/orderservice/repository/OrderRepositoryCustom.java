@@ -0,0 +1,17 @@
+package com.example.orderservice.repository;
+
+import com.example.orderservice.entity.Order;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface OrderRepositoryCustom {
+    // Replaces the inherited findById: routed to the customer's shard when the id carries the customer
+    Optional<Order> findById(String id);
+
+    List<Order> findPage(OrderFilter filter, OrderCursor after, int limit);
+
+    // Backed by an open Mongo cursor: callers must close the stream.
+    Stream<Order> streamFiltered(OrderFilter filter);
+}
@@ -0,0 +1,38 @@
+package com.example.orderservice.repository;
+
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.id.OrderIds;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Reads span the hot collection and the archive buckets (see OrderArchive)
+@RequiredArgsConstructor
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+    private final OrderArchive archive;
+
+    @Override
+    public Optional<Order> findById(String id) {
+        return Optional.ofNullable(mongoTemplate.findOne(Query.query(OrderIds.where(id)), Order.class));
+    }
+
+    @Override
+    public List<Order> findPage(OrderFilter filter, OrderCursor after, int limit) {
+        List<Order> hot = mongoTemplate.find(OrderQueries.pageQuery(filter, after, limit), Order.class);
+        // A full hot page bounds the result: archive buckets starting after its last order cannot contribute
+        LocalDateTime upTo = hot.size() < limit ? null : hot.get(hot.size() - 1).getCreatedAt();
+        return OrderArchive.merge(hot, archive.findPage(filter, after, limit, upTo), limit);
+    }
+
+    @Override
+    public Stream<Order> streamFiltered(OrderFilter filter) {
+        Stream<Order> hot = mongoTemplate.stream(OrderQueries.streamQuery(filter), Order.class);
+        return OrderArchive.merge(hot, archive.stream(filter));
+    }
+}
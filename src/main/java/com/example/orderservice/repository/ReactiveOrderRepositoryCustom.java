@@ -0,0 +1,14 @@
+package com.example.orderservice.repository;
+
+import com.example.orderservice.entity.Order;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveOrderRepositoryCustom {
+    // Replaces the inherited findById: routed to the customer's shard when the id carries the customer
+    Mono<Order> findById(String id);
+
+    Flux<Order> findPage(OrderFilter filter, OrderCursor after, int limit);
+
+    Flux<Order> streamFiltered(OrderFilter filter);
+}
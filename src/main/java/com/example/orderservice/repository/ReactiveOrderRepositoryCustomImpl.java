@@ -0,0 +1,30 @@
+package com.example.orderservice.repository;
+
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.id.OrderIds;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class ReactiveOrderRepositoryCustomImpl implements ReactiveOrderRepositoryCustom {
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<Order> findById(String id) {
+        return mongoTemplate.findOne(Query.query(OrderIds.where(id)), Order.class);
+    }
+
+    @Override
+    public Flux<Order> findPage(OrderFilter filter, OrderCursor after, int limit) {
+        return mongoTemplate.find(OrderQueries.pageQuery(filter, after, limit), Order.class);
+    }
+
+    @Override
+    public Flux<Order> streamFiltered(OrderFilter filter) {
+        // Demand-driven: the cursor only fetches the next batch when downstream requests more
+        return mongoTemplate.find(OrderQueries.streamQuery(filter), Order.class);
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.cache.CacheBatchEvictor;
+import com.example.orderservice.dto.CustomerSummaryDto;
+import com.example.orderservice.entity.CustomerSummary;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.repository.OrderArchive;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.example.orderservice.service.OrderAnalyticsService.stage;
+
+/**
+ * Per-customer order counts, lifetime value and most recent orders ({@link CustomerSummary}), so customer
+ * pages read one small document instead of scanning the customer's orders.
+ * <p>
+ * Kept up to date with $inc/$push updates from the servlet order writes. A summary is only updated
+ * incrementally once it exists; customers without one are rebuilt from their orders, on the first write
+ * or read. Writes evict the customer's cached summary.
+ * <p>
+ * A rebuild does not overwrite a summary that was incremented after it started (updatedAt is set from the
+ * server clock on both sides), since the recomputed value may not include that change; {@link #rebuildAll()}
+ * retries those customers once and logs the ones still left.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerSummaryService {
+    public static final String CACHE = "customerSummaries";
+    // Set by the rebuild's $merge on the summaries it left alone
+    static final String REBUILD_SKIPPED = "rebuildSkippedAt";
+
+    private final MongoTemplate mongoTemplate;
+    private final CacheManager cacheManager;
+    private final CacheBatchEvictor cacheEvictor;
+    private final OrderArchive archive;
+
+    @Value("${app.customer-summary.recent-orders:10}")
+    private int recentOrders;
+
+    @Cacheable(value = CACHE, key = "#customerId", sync = true)
+    public CustomerSummaryDto getSummary(String customerId) {
+        CustomerSummary summary = mongoTemplate.findById(customerId, CustomerSummary.class);
+        if (summary == null) {
+            rebuild(List.of(customerId));
+            summary = mongoTemplate.findById(customerId, CustomerSummary.class);
+        }
+        if (summary == null) {
+            throw new RuntimeException("Customer not found");
+        }
+        return toDto(summary);
+    }
+
+    public void recordCreated(Order order) {
+        record(order.getCustomerId(), created(order));
+    }
+
+    public void recordTransition(Order previous, String newStatus) {
+        record(previous.getCustomerId(), transition(previous, newStatus));
+    }
+
+    public void recordAllCreated(Collection<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Set<String> customerIds = orders.stream().map(Order::getCustomerId).collect(Collectors.toSet());
+        Set<String> existing = existingSummaries(customerIds);
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, CustomerSummary.class);
+        boolean updates = false;
+        for (Order order : orders) {
+            if (existing.contains(order.getCustomerId())) {
+                bulk.updateOne(Query.query(Criteria.where("_id").is(order.getCustomerId())), created(order));
+                updates = true;
+            }
+        }
+        try {
+            if (updates) {
+                bulk.execute();
+            }
+            // Already includes the new orders
+            List<String> missing = customerIds.stream().filter(id -> !existing.contains(id)).toList();
+            if (!missing.isEmpty()) {
+                rebuild(missing);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Customer summary update failed for {} customers", customerIds.size(), e);
+        }
+        cacheEvictor.evictAll(CACHE, customerIds);
+    }
+
+    public void recordAllTransitions(Collection<Order> previous, String newStatus) {
+        if (previous.isEmpty()) {
+            return;
+        }
+        // Customers without a summary are skipped: the rebuild on their next read sees the new status
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, CustomerSummary.class);
+        for (Order order : previous) {
+            bulk.updateOne(Query.query(Criteria.where("_id").is(order.getCustomerId())), transition(order, newStatus));
+        }
+        try {
+            bulk.execute();
+        } catch (RuntimeException e) {
+            log.warn("Customer summary update failed for {} orders", previous.size(), e);
+        }
+        cacheEvictor.evictAll(CACHE, previous.stream().map(Order::getCustomerId).collect(Collectors.toSet()));
+    }
+
+    public void rebuildAll() {
+        mongoTemplate.aggregate(rebuildAggregation(null), mongoTemplate.getCollectionName(Order.class), Document.class);
+        List<String> skipped = takeSkipped();
+        if (!skipped.isEmpty()) {
+            rebuild(skipped);
+            skipped = takeSkipped();
+        }
+        if (skipped.isEmpty()) {
+            log.info("Rebuilt all customer summaries");
+        } else {
+            log.warn("Rebuilt all customer summaries except {} updated while rebuilding: {}", skipped.size(), skipped);
+        }
+        Cache cache = cacheManager.getCache(CACHE);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    void rebuild(Collection<String> customerIds) {
+        mongoTemplate.aggregate(rebuildAggregation(customerIds), mongoTemplate.getCollectionName(Order.class), Document.class);
+    }
+
+    private List<String> takeSkipped() {
+        Query query = Query.query(Criteria.where(REBUILD_SKIPPED).exists(true));
+        query.fields().include("_id");
+        List<String> skipped = mongoTemplate.find(query, CustomerSummary.class).stream()
+                .map(CustomerSummary::getCustomerId)
+                .toList();
+        if (!skipped.isEmpty()) {
+            mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(skipped)),
+                    new Update().unset(REBUILD_SKIPPED), CustomerSummary.class);
+        }
+        return skipped;
+    }
+
+    private void record(String customerId, Update update) {
+        try {
+            UpdateResult result = mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(customerId)),
+                    update, CustomerSummary.class);
+            if (result.getMatchedCount() == 0) {
+                rebuild(List.of(customerId));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Customer summary update failed for customer {}", customerId, e);
+        }
+        // Evict rather than put: puts of concurrent writes for the customer could land out of order
+        cacheEvictor.evictAll(CACHE, List.of(customerId));
+    }
+
+    private Update created(Order order) {
+        double total = OrderMapper.total(order);
+        CustomerSummary.RecentOrder recent = new CustomerSummary.RecentOrder();
+        recent.setOrderId(order.getId());
+        recent.setStatus(order.getStatus());
+        recent.setTotal(total);
+        recent.setCreatedAt(order.getCreatedAt());
+        Update update = new Update()
+                .inc("orderCount", 1)
+                .inc("statusCounts." + order.getStatus(), 1)
+                .currentDate("updatedAt");
+        if (!"CANCELLED".equals(order.getStatus())) {
+            update.inc("lifetimeValue", total);
+        }
+        update.push("recentOrders").atPosition(Update.Position.FIRST).slice(recentOrders).each(recent);
+        return update;
+    }
+
+    private static Update transition(Order previous, String newStatus) {
+        Update update = new Update()
+                .inc("statusCounts." + previous.getStatus(), -1)
+                .inc("statusCounts." + newStatus, 1)
+                .currentDate("updatedAt")
+                // No-op when the order is no longer among the recent ones
+                .set("recentOrders.$[recent].status", newStatus)
+                .filterArray(Criteria.where("recent.orderId").is(previous.getId()));
+        if ("CANCELLED".equals(newStatus) && !"CANCELLED".equals(previous.getStatus())) {
+            update.inc("lifetimeValue", -OrderMapper.total(previous));
+        }
+        return update;
+    }
+
+    private Set<String> existingSummaries(Set<String> customerIds) {
+        Query query = Query.query(Criteria.where("_id").in(customerIds));
+        query.fields().include("_id");
+        return mongoTemplate.find(query, CustomerSummary.class).stream()
+                .map(CustomerSummary::getCustomerId)
+                .collect(Collectors.toSet());
+    }
+
+    // Recomputes the summaries of the given customers (all when null) and replaces them with $merge, except the
+    // ones updated since the aggregation started ($$NOW): those keep their counters and get REBUILD_SKIPPED
+    Aggregation rebuildAggregation(Collection<String> customerIds) {
+        Document counts = new Document();
+        Document group = new Document("_id", "$customerId")
+                .append("orderCount", new Document("$sum", 1))
+                .append("lifetimeValue", new Document("$sum", new Document("$cond",
+                        List.of(new Document("$eq", List.of("$status", "CANCELLED")), 0, OrderAnalyticsService.ORDER_REVENUE))))
+                .append("recentOrders", new Document("$topN", new Document("n", recentOrders)
+                        .append("sortBy", new Document("createdAt", -1).append("_id", -1))
+                        .append("output", new Document("orderId", "$_id")
+                                .append("status", "$status")
+                                .append("total", OrderAnalyticsService.ORDER_REVENUE)
+                                .append("createdAt", "$createdAt"))));
+        for (String status : OrderService.VALID_STATUSES) {
+            group.append(status, new Document("$sum", new Document("$cond",
+                    List.of(new Document("$eq", List.of("$status", status)), 1, 0))));
+            counts.append(status, "$" + status);
+        }
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        Criteria customers = new Criteria();
+        if (customerIds != null) {
+            // Served by the customerId_createdAt_id index (on the archive buckets too)
+            customers = Criteria.where("customerId").in(customerIds);
+            stages.add(Aggregation.match(customers));
+        }
+        // Archived orders still count towards the summary
+        stages.addAll(archive.unionWith(customers));
+        stages.add(stage("$group", group));
+        stages.add(stage("$project", new Document("orderCount", 1)
+                .append("statusCounts", counts)
+                .append("lifetimeValue", 1)
+                .append("recentOrders", 1)
+                .append("updatedAt", "$$NOW")));
+        Document updatedSinceStart = new Document("$gte", List.of("$updatedAt", "$$new.updatedAt"));
+        Document markSkipped = new Document("$mergeObjects",
+                List.of("$$ROOT", new Document(REBUILD_SKIPPED, "$$new.updatedAt")));
+        stages.add(stage("$merge", new Document("into", mongoTemplate.getCollectionName(CustomerSummary.class))
+                .append("whenMatched", List.of(new Document("$replaceWith",
+                        new Document("$cond", List.of(updatedSinceStart, markSkipped, "$$new")))))
+                .append("whenNotMatched", "insert")));
+        return Aggregation.newAggregation(stages)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+    }
+
+    static CustomerSummaryDto toDto(CustomerSummary summary) {
+        CustomerSummaryDto dto = new CustomerSummaryDto();
+        dto.setCustomerId(summary.getCustomerId());
+        dto.setOrderCount(summary.getOrderCount());
+        dto.setStatusCounts(summary.getStatusCounts());
+        dto.setLifetimeValue(summary.getLifetimeValue());
+        dto.setRecentOrders(summary.getRecentOrders().stream().map(recent -> {
+            CustomerSummaryDto.RecentOrderDto recentDto = new CustomerSummaryDto.RecentOrderDto();
+            recentDto.setOrderId(recent.getOrderId());
+            recentDto.setStatus(recent.getStatus());
+            recentDto.setTotal(recent.getTotal());
+            recentDto.setCreatedAt(recent.getCreatedAt());
+            return recentDto;
+        }).toList());
+        dto.setUpdatedAt(summary.getUpdatedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.exception.IdempotencyConflictException;
+import com.example.orderservice.exception.IdempotencyKeyReusedException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates retried requests by Idempotency-Key in Redis.
+ * <p>
+ * The first request claims the key with SET NX; the pending record doubles as an in-flight lock that expires
+ * after {@code app.idempotency.lock-ttl} if the node dies. Its response then replaces the record for
+ * {@code app.idempotency.ttl} and is replayed to retries, which cost one Redis GET and never reach Mongo.
+ * A failed request releases the key so it can be retried. Each record carries a hash of the request body,
+ * so a key reused for a different request is rejected instead of replaying an unrelated response.
+ * The pending record also carries a random owner token: a request that outlived its lock only stores its
+ * response or releases the key while the claim is still its own (compare-and-set/delete in Lua), so it never
+ * touches the claim or record of a retry that took the key over.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+    static final String KEY_PREFIX = "idempotency:";
+    static final int MAX_KEY_LENGTH = 255;
+    // KEYS[1] idempotency key, ARGV[1] owner token; a record whose claim expired unclaimed counts as ours
+    static final RedisScript<Long> STORE = RedisScript.of("""
+            local current = redis.call('GET', KEYS[1])
+            if current and cjson.decode(current).owner ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
+    static final RedisScript<Long> RELEASE = RedisScript.of("""
+            local current = redis.call('GET', KEYS[1])
+            if current and cjson.decode(current).owner == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    // Keep above the request timeout, or a slow request's retry runs it a second time
+    @Value("${app.idempotency.lock-ttl:30s}")
+    private Duration lockTtl;
+
+    public record Result<T>(T response, boolean replayed) {
+    }
+
+    public <T> Result<T> execute(String scope, String idempotencyKey, Object request,
+                                 Class<T> responseType, Supplier<T> action) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must have 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String key = KEY_PREFIX + scope + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+
+        String stored = redisTemplate.opsForValue().get(key);
+        if (stored == null) {
+            String owner = UUID.randomUUID().toString();
+            Boolean claimed = redisTemplate.opsForValue().setIfAbsent(key, write(new IdempotencyRecord(fingerprint, owner, null)), lockTtl);
+            if (Boolean.TRUE.equals(claimed)) {
+                count(scope, "new");
+                return new Result<>(runAndStore(key, fingerprint, owner, action), false);
+            }
+            // Lost the race for the key
+            stored = redisTemplate.opsForValue().get(key);
+        }
+
+        IdempotencyRecord record = stored == null ? null : read(stored);
+        if (record != null && !fingerprint.equals(record.getFingerprint())) {
+            count(scope, "mismatch");
+            throw new IdempotencyKeyReusedException("Idempotency-Key was already used for a different request");
+        }
+        // A pending record reads back with a JSON null response
+        if (record == null || record.getResponse() == null || record.getResponse().isNull()) {
+            count(scope, "in_progress");
+            throw new IdempotencyConflictException("A request with this Idempotency-Key is in progress");
+        }
+        count(scope, "replayed");
+        try {
+            return new Result<>(objectMapper.treeToValue(record.getResponse(), responseType), true);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored response for " + key, e);
+        }
+    }
+
+    private <T> T runAndStore(String key, String fingerprint, String owner, Supplier<T> action) {
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            redisTemplate.execute(RELEASE, List.of(key), owner);
+            throw e;
+        }
+        try {
+            String record = write(new IdempotencyRecord(fingerprint, owner, objectMapper.valueToTree(response)));
+            Long stored = redisTemplate.execute(STORE, List.of(key), owner, record, String.valueOf(ttl.toMillis()));
+            if (stored == null || stored == 0) {
+                log.warn("Lock on {} expired and was claimed by a retry before the response was stored", key);
+            }
+        } catch (RuntimeException e) {
+            // The write succeeded; the pending record still blocks retries until the lock expires
+            log.warn("Could not store response for {}", key, e);
+        }
+        return response;
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash request", e);
+        }
+    }
+
+    private String write(IdempotencyRecord record) {
+        try {
+            return objectMapper.writeValueAsString(record);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write idempotency record", e);
+        }
+    }
+
+    private IdempotencyRecord read(String value) {
+        try {
+            return objectMapper.readValue(value, IdempotencyRecord.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read idempotency record", e);
+        }
+    }
+
+    private void count(String scope, String result) {
+        meterRegistry.counter("idempotency.requests", "scope", scope, "result", result).increment();
+    }
+
+    // response is null while the first request is in flight; owner is the token of the request that claimed the key
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class IdempotencyRecord {
+        private String fingerprint;
+        private String owner;
+        private JsonNode response;
+    }
+}
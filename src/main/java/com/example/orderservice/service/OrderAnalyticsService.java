@@ -0,0 +1,91 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.dto.OrderStatsDto;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.metrics.OrderMetrics;
+import com.example.orderservice.repository.OrderArchive;
+import com.example.orderservice.repository.OrderFilter;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Order counts and revenue computed by Mongo aggregation pipelines, so only the groups leave the database.
+ * Status and day breakdowns without a customer filter are read from the daily rollup when it is enabled.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderAnalyticsService {
+    // Sum of price * quantity over the order items
+    static final Document ORDER_REVENUE = new Document("$sum", new Document("$map",
+            new Document("input", new Document("$ifNull", List.of("$items", List.of())))
+                    .append("as", "item")
+                    .append("in", new Document("$multiply", List.of("$$item.price", "$$item.quantity")))));
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderStatsRollup rollup;
+    private final OrderMetrics metrics;
+    private final OrderArchive archive;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    public List<OrderStatsDto> getStats(OrderFilter filter, OrderStatsGrouping groupBy) {
+        filter.validate();
+        if (rollup.canServe(filter, groupBy)) {
+            return metrics.mongo("statsRollup", () -> rollup.query(filter, groupBy));
+        }
+        return metrics.mongo("stats", () -> aggregate(filter, groupBy));
+    }
+
+    public void rebuildRollup() {
+        if (!rollup.isEnabled()) {
+            throw new IllegalArgumentException("Stats rollup is disabled");
+        }
+        rollup.rebuild();
+    }
+
+    // The $match is served by the same compound indexes as GET /orders; archived orders are unioned in after it
+    List<OrderStatsDto> aggregate(OrderFilter filter, OrderStatsGrouping groupBy) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(Aggregation.match(filter.toCriteria()));
+        stages.addAll(archive.unionWith(filter));
+        stages.add(stage("$group", new Document("_id", groupBy.keyExpression(zone))
+                .append("count", new Document("$sum", 1))
+                .append("revenue", new Document("$sum", ORDER_REVENUE))));
+        stages.add(stage("$sort", new Document("_id", 1)));
+        TypedAggregation<Order> aggregation = Aggregation.newAggregation(Order.class, stages)
+                // Grouping by customer can outgrow the in-memory stage limit
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        return toStats(mongoTemplate.aggregate(aggregation, Document.class).getMappedResults(), zone);
+    }
+
+    static AggregationOperation stage(String name, Document body) {
+        return context -> new Document(name, body);
+    }
+
+    static List<OrderStatsDto> toStats(List<Document> groups, ZoneId zone) {
+        return groups.stream()
+                .map(group -> new OrderStatsDto(
+                        key(group.get("_id"), zone),
+                        ((Number) group.get("count")).longValue(),
+                        ((Number) group.get("revenue")).doubleValue()))
+                .toList();
+    }
+
+    private static String key(Object id, ZoneId zone) {
+        if (id instanceof Date date) {
+            return LocalDateTime.ofInstant(date.toInstant(), zone).toString();
+        }
+        return id == null ? null : id.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.repository.OrderArchive;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves delivered and cancelled orders older than {@code min-age} (by creation and last update) from the hot
+ * collection to the monthly archive buckets, in batches. Each batch is copied first and then removed, guarded
+ * on the same criteria, so a crash in between only leaves copies that reads already deduplicate.
+ * Orders with outbox events still pending stay until OrderEventRelay has published them.
+ */
+@Component
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true")
+@Slf4j
+public class OrderArchiver {
+    private final MongoTemplate mongoTemplate;
+    private final OrderArchive archive;
+    private final Counter archived;
+
+    @Value("${app.archive.min-age:30d}")
+    private Duration minAge = Duration.ofDays(30);
+
+    @Value("${app.archive.batch-size:1000}")
+    private int batchSize = 1000;
+
+    public OrderArchiver(MongoTemplate mongoTemplate, OrderArchive archive, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.archive = archive;
+        this.archived = Counter.builder("order.archived").description("Orders moved to the archive").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.archive.interval:10m}", initialDelayString = "${app.archive.interval:10m}")
+    public void run() {
+        try {
+            int total = 0;
+            int moved;
+            do {
+                moved = archiveBatch(LocalDateTime.now().minus(minAge));
+                total += moved;
+            } while (moved >= batchSize);
+            if (total > 0) {
+                log.info("Archived {} orders", total);
+            }
+        } catch (Exception e) {
+            log.error("Order archiving failed", e);
+        }
+    }
+
+    // Returns the number of orders moved; a full batch means more may be waiting
+    int archiveBatch(LocalDateTime cutoff) {
+        Criteria archivable = archivable(cutoff);
+        // Raw documents: copied to the archive as stored, without a round trip through the entity
+        List<Document> batch = mongoTemplate.find(new Query(archivable).limit(batchSize), Document.class,
+                mongoTemplate.getCollectionName(Order.class));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Object> ids = archive.archive(batch);
+        long removed = mongoTemplate.remove(Query.query(new Criteria().andOperator(Criteria.where("_id").in(ids), archivable)),
+                Order.class).getDeletedCount();
+        archived.increment(removed);
+        log.debug("Archived {} of {} orders read", removed, batch.size());
+        return (int) removed;
+    }
+
+    // Served by status_createdAt_id; updatedAt and the outbox are checked on the matched documents
+    static Criteria archivable(LocalDateTime cutoff) {
+        return new Criteria().andOperator(
+                Criteria.where("status").in(OrderArchive.ARCHIVED_STATUSES),
+                Criteria.where("createdAt").lt(cutoff),
+                new Criteria().orOperator(Criteria.where("updatedAt").exists(false), Criteria.where("updatedAt").lt(cutoff)),
+                Criteria.where("outbox.eventId").exists(false));
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.cache.OrderJsonCacheManager;
+import com.example.orderservice.cache.TwoTierCacheManager;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.id.OrderIds;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails the {@code orders} change stream so the "orders" cache follows every write, including ones that do
+ * not go through {@link OrderService} (bulk fixes, other services). Changes that only touch the outbox or its
+ * lease are filtered out in Mongo.
+ * <p>
+ * Every node drops its own near-cache copy of each changed order. Only the node holding the lease on
+ * {@code name} (in {@code change_stream_leases}, renewed every third of {@code lease}) re-caches the order in
+ * Redis from the post-image, or evicts it, and queues external events, so a write costs one Redis write and
+ * one invalidation message whatever the number of nodes.
+ * <p>
+ * Each node saves its resume token at most every {@code token-save-interval} under {@code name@node}; the lease
+ * holder also saves it under {@code name}, and a node taking over the lease reopens the stream from there, so
+ * changes the previous holder had not handled yet are not skipped. Replays are harmless since handling is
+ * idempotent. If the token is no longer in the oplog the cache is cleared and the stream starts from now.
+ * <p>
+ * With {@code queue-external-events}, status changes made without an outbox event (i.e. not by this service)
+ * get one appended, so OrderEventRelay publishes them too. The cluster time of the change is recorded on the
+ * order, so a replay of the change (restart, lease handover) does not queue it again after the relay drained
+ * it. The old status needs pre-images enabled on the collection.
+ * <p>
+ * Requires a replica set or sharded cluster.
+ */
+@Component
+@ConditionalOnProperty(name = "app.change-stream.enabled", havingValue = "true")
+@Slf4j
+public class OrderChangeStreamListener implements SmartLifecycle {
+    static final String TOKEN_COLLECTION = "change_stream_tokens";
+    static final String LEASE_COLLECTION = "change_stream_leases";
+    static final String CACHE_NAME = "orders";
+    // Starts with "outbox", so setting it is filtered out of the stream like the relay's bookkeeping
+    static final String EXTERNAL_CHANGE_TIME = "outboxExternalChangeTime";
+    // ChangeStreamHistoryLost, ChangeStreamFatalError: the token cannot be resumed from
+    private static final Set<Integer> UNRESUMABLE_ERRORS = Set.of(280, 286);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+    private final String name;
+    private final String nodeTokenName;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Duration tokenSaveInterval;
+    private final Duration lease;
+    private final boolean queueExternalEvents;
+
+    private volatile boolean running;
+    private volatile boolean leader;
+    private volatile Thread worker;
+    private long leaseCheckedAt;
+
+    public OrderChangeStreamListener(MongoTemplate mongoTemplate,
+                                     CacheManager cacheManager,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.change-stream.name:orders-cache}") String name,
+                                     @Value("${app.change-stream.node:${HOSTNAME:local}}") String node,
+                                     @Value("${app.change-stream.token-save-interval:1s}") Duration tokenSaveInterval,
+                                     @Value("${app.change-stream.lease:15s}") Duration lease,
+                                     @Value("${app.change-stream.queue-external-events:false}") boolean queueExternalEvents) {
+        this.mongoTemplate = mongoTemplate;
+        this.cacheManager = cacheManager;
+        this.meterRegistry = meterRegistry;
+        this.name = name;
+        this.nodeTokenName = name + "@" + node;
+        this.tokenSaveInterval = tokenSaveInterval;
+        this.lease = lease;
+        this.queueExternalEvents = queueExternalEvents;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = Thread.ofVirtual().name("orders-change-stream").start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = worker;
+        if (thread != null) {
+            try {
+                // The cursor wakes up at least once per second to check the flag
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        releaseLease();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                renewLease();
+                // The lease holder continues from where the previous holder stopped
+                BsonDocument token = leader ? loadToken(name) : null;
+                tail(token != null ? token : loadToken(nodeTokenName));
+            } catch (MongoException e) {
+                if (UNRESUMABLE_ERRORS.contains(e.getCode())) {
+                    log.warn("Change stream cannot resume from the saved token, clearing the cache and restarting", e);
+                    deleteTokens();
+                    clearCache();
+                } else if (running) {
+                    log.warn("Change stream failed, reopening in {}", RETRY_DELAY, e);
+                    sleep(RETRY_DELAY);
+                }
+            } catch (RuntimeException e) {
+                log.error("Change stream handler failed, reopening in {}", RETRY_DELAY, e);
+                sleep(RETRY_DELAY);
+            }
+        }
+    }
+
+    private void tail(BsonDocument resumeToken) {
+        var stream = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class))
+                .watch(pipeline())
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (queueExternalEvents) {
+            stream.fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE);
+        }
+        if (resumeToken != null) {
+            stream.resumeAfter(resumeToken);
+        }
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            log.info("Watching order changes{}", resumeToken == null ? "" : " from saved resume token");
+            BsonDocument saved = resumeToken;
+            long lastSave = System.nanoTime();
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null && !handle(change)) {
+                    // The stream was invalidated (collection dropped or renamed): start over from now
+                    deleteTokens();
+                    return;
+                }
+                // Also advances while idle (post-batch token), so a restart does not rescan quiet periods
+                BsonDocument token = cursor.getResumeToken();
+                if (token != null && !token.equals(saved) && System.nanoTime() - lastSave >= tokenSaveInterval.toNanos()) {
+                    saveTokens(token);
+                    saved = token;
+                    lastSave = System.nanoTime();
+                }
+                boolean wasLeader = leader;
+                if (System.nanoTime() - leaseCheckedAt >= lease.toNanos() / 3 && renewLease() && !wasLeader) {
+                    // Took over: reopen from the previous holder's token (this node's own position is kept)
+                    if (token != null) {
+                        saveToken(nodeTokenName, token);
+                    }
+                    return;
+                }
+            }
+            if (cursor.getResumeToken() != null) {
+                saveTokens(cursor.getResumeToken());
+            }
+        }
+    }
+
+    // Returns false when the stream can not continue
+    boolean handle(ChangeStreamDocument<Document> change) {
+        meterRegistry.counter("order.change_stream.events", "operation", change.getOperationTypeString()).increment();
+        switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                String id = orderId(change);
+                evictLocal(List.of(id));
+                if (leader) {
+                    Document fullDocument = change.getFullDocument();
+                    if (fullDocument == null) {
+                        // Deleted before the post-image was looked up
+                        cache().evict(id);
+                    } else {
+                        cache().put(id, OrderMapper.toDto(mongoTemplate.getConverter().read(Order.class, fullDocument)));
+                    }
+                    if (queueExternalEvents && change.getUpdateDescription() != null) {
+                        queueExternalStatusChange(id, change);
+                    }
+                }
+            }
+            case DELETE -> {
+                String id = orderId(change);
+                evictLocal(List.of(id));
+                if (leader) {
+                    cache().evict(id);
+                }
+            }
+            case DROP, RENAME, DROP_DATABASE -> clearCache();
+            case INVALIDATE -> {
+                clearCache();
+                return false;
+            }
+            default -> log.debug("Ignoring change stream event {}", change.getOperationTypeString());
+        }
+        return true;
+    }
+
+    private void queueExternalStatusChange(String id, ChangeStreamDocument<Document> change) {
+        BsonDocument updated = change.getUpdateDescription().getUpdatedFields();
+        // Status changes made by OrderService carry their outbox event in the same write
+        if (updated == null || !updated.containsKey("status") || updated.keySet().stream().anyMatch(key -> key.startsWith("outbox"))) {
+            return;
+        }
+        Order.OutboxEvent event = new Order.OutboxEvent();
+        event.setEventId(UUID.nameUUIDFromBytes(change.getResumeToken().toJson().getBytes(StandardCharsets.UTF_8)).toString());
+        Document before = change.getFullDocumentBeforeChange();
+        event.setOldStatus(before == null ? null : before.getString("status"));
+        event.setNewStatus(updated.getString("status").getValue());
+        event.setTimestamp(change.getWallTime() == null ? LocalDateTime.now()
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(change.getWallTime().getValue()), ZoneId.systemDefault()));
+        // Idempotent across replays: a change no later than the last one queued for the order is skipped,
+        // even after the relay drained its event
+        BsonTimestamp changeTime = change.getClusterTime();
+        Criteria notQueued = new Criteria().orOperator(
+                Criteria.where(EXTERNAL_CHANGE_TIME).exists(false),
+                Criteria.where(EXTERNAL_CHANGE_TIME).lt(changeTime));
+        mongoTemplate.updateFirst(
+                Query.query(OrderIds.where(id).andOperator(notQueued)),
+                new Update().push("outbox", event).set(EXTERNAL_CHANGE_TIME, changeTime),
+                Order.class);
+        log.info("Queued event for external status change of order {}: {} -> {}", id, event.getOldStatus(), event.getNewStatus());
+    }
+
+    // Drops changes that only touch the outbox or its lease (relay bookkeeping), before the post-image lookup
+    static List<Document> pipeline() {
+        Document notOutbox = new Document("$not", new Document("$regexMatch",
+                new Document("input", "$$this.k").append("regex", "^outbox")));
+        Document changedFields = new Document("$filter", new Document("input",
+                new Document("$objectToArray", new Document("$ifNull", List.of("$updateDescription.updatedFields", new Document()))))
+                .append("cond", notOutbox));
+        Document removedFields = new Document("$filter", new Document("input",
+                new Document("$ifNull", List.of("$updateDescription.removedFields", List.of())))
+                .append("cond", new Document("$not", new Document("$regexMatch",
+                        new Document("input", "$$this").append("regex", "^outbox")))));
+        return List.of(new Document("$match", new Document("$expr", new Document("$or", List.of(
+                new Document("$ne", List.of("$operationType", "update")),
+                new Document("$gt", List.of(new Document("$size", changedFields), 0)),
+                new Document("$gt", List.of(new Document("$size", removedFields), 0)))))));
+    }
+
+    // The id as Order.id reads it; orders inserted by other writers may have ObjectId ids
+    private static String orderId(ChangeStreamDocument<Document> change) {
+        BsonValue id = change.getDocumentKey().get("_id");
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    // Takes or renews the lease on `name`; false while another node holds an unexpired one
+    private boolean renewLease() {
+        leaseCheckedAt = System.nanoTime();
+        Date now = new Date();
+        boolean held;
+        try {
+            leases().updateOne(
+                    Filters.and(Filters.eq("_id", name), Filters.or(Filters.eq("owner", nodeId), Filters.lt("until", now))),
+                    Updates.combine(Updates.set("owner", nodeId), Updates.set("until", new Date(now.getTime() + lease.toMillis()))),
+                    new UpdateOptions().upsert(true));
+            held = true;
+        } catch (MongoWriteException e) {
+            // The upsert ran into the current holder's lease
+            if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                throw e;
+            }
+            held = false;
+        }
+        if (held != leader) {
+            log.info(held ? "Holding the change stream lease {}" : "Lost the change stream lease {}", name);
+        }
+        leader = held;
+        return held;
+    }
+
+    // Lets another node take over right away instead of after the lease expires
+    private void releaseLease() {
+        if (!leader) {
+            return;
+        }
+        leader = false;
+        try {
+            leases().deleteOne(Filters.and(Filters.eq("_id", name), Filters.eq("owner", nodeId)));
+        } catch (MongoException e) {
+            log.warn("Could not release the change stream lease {}", name, e);
+        }
+    }
+
+    private BsonDocument loadToken(String tokenName) {
+        BsonDocument saved = tokens().withDocumentClass(BsonDocument.class).find(Filters.eq("_id", tokenName)).first();
+        return saved == null ? null : saved.getDocument("token", null);
+    }
+
+    private void saveTokens(BsonDocument token) {
+        saveToken(nodeTokenName, token);
+        if (leader) {
+            saveToken(name, token);
+        }
+    }
+
+    private void saveToken(String tokenName, BsonDocument token) {
+        tokens().replaceOne(Filters.eq("_id", tokenName),
+                new Document("_id", tokenName).append("token", token).append("updatedAt", new Date()),
+                new ReplaceOptions().upsert(true));
+    }
+
+    private void deleteTokens() {
+        tokens().deleteOne(Filters.eq("_id", nodeTokenName));
+        if (leader) {
+            tokens().deleteOne(Filters.eq("_id", name));
+        }
+    }
+
+    private MongoCollection<Document> tokens() {
+        return mongoTemplate.getCollection(TOKEN_COLLECTION);
+    }
+
+    private MongoCollection<Document> leases() {
+        return mongoTemplate.getCollection(LEASE_COLLECTION);
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(CACHE_NAME);
+    }
+
+    // This node's near-cache copies only; no invalidation message, every node follows the stream itself
+    private void evictLocal(Collection<?> keys) {
+        if (OrderJsonCacheManager.unwrap(cacheManager) instanceof TwoTierCacheManager twoTierCacheManager) {
+            twoTierCacheManager.evictLocal(CACHE_NAME, keys);
+        }
+    }
+
+    private void clearCache() {
+        evictLocal(List.of());
+        Cache cache = cache();
+        if (leader && cache != null) {
+            cache.clear();
+        }
+    }
+
+    private static void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.dto.EventDto;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.event.EventCodec;
+import com.example.orderservice.id.OrderIds;
+import com.example.orderservice.metrics.OrderMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drains the per-order outbox to Kafka in batches (at-least-once).
+ * Orders are leased before sending so concurrent relays on other nodes do not interleave
+ * events of the same order; events keep their outbox order and are keyed by order id.
+ * An event that still fails after {@code app.outbox.max-attempts} sends is moved to the order's
+ * {@code outboxParked} list, so it no longer blocks the events queued after it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderEventRelay {
+    static final String EVENT_ID_HEADER = "eventId";
+    static final String LEASE_OWNER = "outboxLeaseOwner";
+    static final String LEASE_UNTIL = "outboxLeaseUntil";
+    static final String PARKED = "outboxParked";
+
+    private final MongoTemplate mongoTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final EventCodec eventCodec;
+    private final OrderMetrics metrics;
+    private final String relayId = UUID.randomUUID().toString();
+
+    @Value("${app.kafka.topic:orders.events}")
+    private String topic;
+
+    @Value("${app.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.lease:30s}")
+    private Duration lease;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval:500ms}")
+    public void relay() {
+        try {
+            // Keep draining while batches come back full
+            while (drainBatch() >= batchSize) {
+                log.debug("Outbox backlog remaining, draining next batch");
+            }
+        } catch (Exception e) {
+            log.error("Outbox relay failed", e);
+        }
+    }
+
+    int drainBatch() {
+        List<Order> orders = claimBatch();
+        if (orders.isEmpty()) {
+            return 0;
+        }
+
+        // Outcomes are recorded by the send callbacks; nothing blocks on individual futures
+        Set<String> acked = ConcurrentHashMap.newKeySet();
+        Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        for (Order order : orders) {
+            for (Order.OutboxEvent event : order.getOutbox()) {
+                send(order.getId(), event).whenComplete((result, error) -> {
+                    if (error == null) {
+                        acked.add(event.getEventId());
+                    } else {
+                        failures.put(event.getEventId(), error);
+                    }
+                });
+            }
+        }
+        // Returns once every send of the batch has completed, i.e. after all callbacks ran
+        kafkaTemplate.flush();
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        int published = 0;
+        int updates = 0;
+        for (Order order : orders) {
+            // Events after the first failure are retried too, to keep per-order ordering
+            List<String> ackedPrefix = new ArrayList<>();
+            Order.OutboxEvent failed = null;
+            for (Order.OutboxEvent event : order.getOutbox()) {
+                if (!acked.contains(event.getEventId())) {
+                    failed = event;
+                    break;
+                }
+                ackedPrefix.add(event.getEventId());
+            }
+            published += ackedPrefix.size();
+            Query owned = Query.query(OrderIds.where(order.getId()).and(LEASE_OWNER).is(relayId));
+
+            Update update = new Update();
+            List<String> pulled = new ArrayList<>(ackedPrefix);
+            if (failed != null && failed.getAttempts() + 1 >= maxAttempts) {
+                // Poison event: parked so the events queued behind it are not held up forever
+                park(update, order.getId(), failed, failures.get(failed.getEventId()));
+                pulled.add(failed.getEventId());
+                failed = null;
+            }
+            if (!pulled.isEmpty()) {
+                update.pull("outbox", new Document("eventId", new Document("$in", pulled)));
+            }
+            // On failure keep the lease so the retry waits for it to expire
+            if (failed == null) {
+                update.unset(LEASE_OWNER).unset(LEASE_UNTIL);
+            }
+            if (!update.getUpdateObject().isEmpty()) {
+                bulk.updateOne(owned, update);
+                updates++;
+            }
+            if (failed != null) {
+                // Separate update: $pull on outbox would conflict with a positional update of one of its events
+                bulk.updateOne(owned, failureUpdate(order.getId(), failed, failures.get(failed.getEventId())));
+                updates++;
+            }
+        }
+        if (updates > 0) {
+            bulk.execute();
+        }
+        log.debug("Relayed {} events for {} orders", published, orders.size());
+        return orders.size();
+    }
+
+    private Update failureUpdate(String orderId, Order.OutboxEvent event, Throwable error) {
+        String message = errorMessage(error);
+        log.warn("Failed to publish event {} for order {} (attempt {}), will retry: {}",
+                event.getEventId(), orderId, event.getAttempts() + 1, message);
+        return new Update()
+                .inc("outbox.$[failed].attempts", 1)
+                .set("outbox.$[failed].lastError", message)
+                .filterArray(Criteria.where("failed.eventId").is(event.getEventId()));
+    }
+
+    private void park(Update update, String orderId, Order.OutboxEvent event, Throwable error) {
+        String message = errorMessage(error);
+        log.error("Giving up on event {} for order {} after {} attempts, parked in {}: {}",
+                event.getEventId(), orderId, event.getAttempts() + 1, PARKED, message);
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(message);
+        update.push(PARKED, event);
+        metrics.recordOutboxParked();
+    }
+
+    // No recorded outcome means the send did not complete before flush returned
+    private static String errorMessage(Throwable error) {
+        return error == null ? "Not acknowledged" : String.valueOf(rootCause(error).getMessage());
+    }
+
+    private static Throwable rootCause(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private List<Order> claimBatch() {
+        Instant now = Instant.now();
+        // The outbox.eventId predicate lets the planner use the outbox_pending partial index
+        Criteria claimable = new Criteria().andOperator(
+                Criteria.where("outbox.eventId").exists(true),
+                new Criteria().orOperator(
+                        Criteria.where(LEASE_UNTIL).exists(false),
+                        Criteria.where(LEASE_UNTIL).lt(now)));
+
+        Query candidates = new Query(claimable).limit(batchSize);
+        candidates.fields().include("_id");
+        List<String> ids = mongoTemplate.find(candidates, Order.class).stream().map(Order::getId).toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Query claim = new Query(new Criteria().andOperator(OrderIds.whereIn(ids), claimable));
+        mongoTemplate.updateMulti(claim,
+                new Update().set(LEASE_OWNER, relayId).set(LEASE_UNTIL, now.plus(lease)),
+                Order.class);
+        return mongoTemplate.find(Query.query(OrderIds.whereIn(ids).and(LEASE_OWNER).is(relayId)), Order.class);
+    }
+
+    private CompletableFuture<SendResult<String, byte[]>> send(String orderId, Order.OutboxEvent outboxEvent) {
+        EventDto event = new EventDto();
+        event.setOrderId(orderId);
+        event.setOldStatus(outboxEvent.getOldStatus());
+        event.setNewStatus(outboxEvent.getNewStatus());
+        event.setTimestamp(outboxEvent.getTimestamp());
+        try {
+            // Record timestamp is the time of the status change, not of the (possibly retried) send
+            Long timestamp = event.getTimestamp() == null ? null
+                    : event.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, null, timestamp, orderId, eventCodec.encode(event));
+            // Lets consumers drop redeliveries of the same event
+            record.headers().add(EVENT_ID_HEADER, outboxEvent.getEventId().getBytes(StandardCharsets.UTF_8));
+            record.headers().add(EventCodec.CONTENT_TYPE_HEADER, eventCodec.contentType().getBytes(StandardCharsets.UTF_8));
+            long start = System.nanoTime();
+            return kafkaTemplate.send(record).whenComplete((result, error) -> {
+                metrics.recordPublish(start, error == null);
+                if (error == null) {
+                    metrics.recordOutboxLag(outboxEvent.getTimestamp());
+                }
+            });
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.dto.ItemDto;
+import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.entity.Order;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Writes orders straight to a {@link JsonGenerator}, byte for byte what Jackson produces for
+ * {@link OrderResponseDto} with the application ObjectMapper (ISO dates, nulls included, declaration order),
+ * so entities can be rendered without mapping them to DTOs first and without the bean serializer.
+ * Apart from the generator's own buffers nothing is allocated per order. One instance per response.
+ */
+public final class OrderJsonWriter {
+    // Pre-encoded field names
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString CUSTOMER_ID = new SerializedString("customerId");
+    private static final SerializedString STATUS = new SerializedString("status");
+    private static final SerializedString ITEMS = new SerializedString("items");
+    private static final SerializedString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializedString UPDATED_AT = new SerializedString("updatedAt");
+    private static final SerializedString VERSION = new SerializedString("version");
+    private static final SerializedString SKU = new SerializedString("sku");
+    private static final SerializedString QUANTITY = new SerializedString("quantity");
+    private static final SerializedString PRICE = new SerializedString("price");
+
+    private final JsonGenerator generator;
+    // Longest ISO_LOCAL_DATE_TIME for years 0-9999: 2024-01-01T00:00:00.123456789
+    private final char[] dateTime = new char[29];
+
+    public OrderJsonWriter(JsonGenerator generator) {
+        this.generator = generator;
+    }
+
+    public void write(Order order) throws IOException {
+        writeHead(order.getId(), order.getCustomerId(), order.getStatus());
+        List<Order.Item> items = order.getItems();
+        generator.writeFieldName(ITEMS);
+        if (items == null) {
+            generator.writeNull();
+        } else {
+            generator.writeStartArray();
+            for (int i = 0; i < items.size(); i++) {
+                Order.Item item = items.get(i);
+                writeItem(item.getSku(), item.getQuantity(), item.getPrice());
+            }
+            generator.writeEndArray();
+        }
+        writeTail(order.getCreatedAt(), order.getUpdatedAt(), order.getVersion());
+    }
+
+    public void write(OrderResponseDto order) throws IOException {
+        writeHead(order.getId(), order.getCustomerId(), order.getStatus());
+        List<ItemDto> items = order.getItems();
+        generator.writeFieldName(ITEMS);
+        if (items == null) {
+            generator.writeNull();
+        } else {
+            generator.writeStartArray();
+            for (int i = 0; i < items.size(); i++) {
+                ItemDto item = items.get(i);
+                writeItem(item.getSku(), item.getQuantity(), item.getPrice());
+            }
+            generator.writeEndArray();
+        }
+        writeTail(order.getCreatedAt(), order.getUpdatedAt(), order.getVersion());
+    }
+
+    private void writeHead(String id, String customerId, String status) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        generator.writeString(id);
+        generator.writeFieldName(CUSTOMER_ID);
+        generator.writeString(customerId);
+        generator.writeFieldName(STATUS);
+        generator.writeString(status);
+    }
+
+    private void writeItem(String sku, int quantity, double price) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(SKU);
+        generator.writeString(sku);
+        generator.writeFieldName(QUANTITY);
+        generator.writeNumber(quantity);
+        generator.writeFieldName(PRICE);
+        generator.writeNumber(price);
+        generator.writeEndObject();
+    }
+
+    private void writeTail(LocalDateTime createdAt, LocalDateTime updatedAt, Long version) throws IOException {
+        generator.writeFieldName(CREATED_AT);
+        writeDateTime(createdAt);
+        generator.writeFieldName(UPDATED_AT);
+        writeDateTime(updatedAt);
+        generator.writeFieldName(VERSION);
+        if (version == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(version);
+        }
+        generator.writeEndObject();
+    }
+
+    // Same text as DateTimeFormatter.ISO_LOCAL_DATE_TIME (what JavaTimeModule writes), formatted in place
+    private void writeDateTime(LocalDateTime value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+            return;
+        }
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            // Signed, expanded years; not worth a fast path
+            generator.writeString(value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            return;
+        }
+        int pos = digits(year, 4, 0);
+        dateTime[pos++] = '-';
+        pos = digits(value.getMonthValue(), 2, pos);
+        dateTime[pos++] = '-';
+        pos = digits(value.getDayOfMonth(), 2, pos);
+        dateTime[pos++] = 'T';
+        pos = digits(value.getHour(), 2, pos);
+        dateTime[pos++] = ':';
+        pos = digits(value.getMinute(), 2, pos);
+        dateTime[pos++] = ':';
+        pos = digits(value.getSecond(), 2, pos);
+        int nano = value.getNano();
+        if (nano != 0) {
+            // Fraction without trailing zeros
+            int width = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                width--;
+            }
+            dateTime[pos++] = '.';
+            pos = digits(nano, width, pos);
+        }
+        generator.writeString(dateTime, 0, pos);
+    }
+
+    // Zero-padded to width
+    private int digits(int value, int width, int pos) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            dateTime[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+}
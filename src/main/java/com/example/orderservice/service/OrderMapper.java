@@ -0,0 +1,60 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.dto.CreateOrderDto;
+import com.example.orderservice.dto.ItemDto;
+import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.entity.Order;
+
+import java.util.stream.Collectors;
+
+/**
+ * Entity/DTO mapping shared by the servlet and reactive order services.
+ */
+public final class OrderMapper {
+
+    private OrderMapper() {
+    }
+
+    public static Order newOrder(CreateOrderDto dto) {
+        Order order = new Order();
+        order.setCustomerId(dto.getCustomerId());
+        order.setItems(dto.getItems().stream().map(OrderMapper::toItem).collect(Collectors.toList()));
+        return order;
+    }
+
+    public static Order.Item toItem(ItemDto dtoItem) {
+        Order.Item item = new Order.Item();
+        item.setSku(dtoItem.getSku());
+        item.setQuantity(dtoItem.getQuantity());
+        item.setPrice(dtoItem.getPrice());
+        return item;
+    }
+
+    public static OrderResponseDto toDto(Order order) {
+        OrderResponseDto dto = new OrderResponseDto();
+        dto.setId(order.getId());
+        dto.setCustomerId(order.getCustomerId());
+        dto.setStatus(order.getStatus());
+        dto.setItems(order.getItems().stream().map(OrderMapper::toItemDto).collect(Collectors.toList()));
+        dto.setCreatedAt(order.getCreatedAt());
+        dto.setUpdatedAt(order.getUpdatedAt());
+        dto.setVersion(order.getVersion());
+        return dto;
+    }
+
+    // Sum of price * quantity, the same figure the analytics pipelines compute in Mongo
+    public static double total(Order order) {
+        if (order.getItems() == null) {
+            return 0;
+        }
+        return order.getItems().stream().mapToDouble(item -> item.getPrice() * item.getQuantity()).sum();
+    }
+
+    public static ItemDto toItemDto(Order.Item item) {
+        ItemDto dto = new ItemDto();
+        dto.setSku(item.getSku());
+        dto.setQuantity(item.getQuantity());
+        dto.setPrice(item.getPrice());
+        return dto;
+    }
+}
@@ -1,121 +1,402 @@
 package com.example.orderservice.service;
 
+import com.example.orderservice.cache.CacheBatchEvictor;
+import com.example.orderservice.cache.OrderJson;
+import com.example.orderservice.cache.OrderJsonCache;
+import com.example.orderservice.cache.OrderJsonCacheManager;
+import com.example.orderservice.dto.BatchResultDto;
+import com.example.orderservice.dto.BulkUpdateStatusDto;
 import com.example.orderservice.dto.CreateOrderDto;
-import com.example.orderservice.dto.EventDto;
+import com.example.orderservice.dto.OrderPageDto;
 import com.example.orderservice.dto.OrderResponseDto;
 import com.example.orderservice.dto.UpdateStatusDto;
 import com.example.orderservice.entity.Order;
+import com.example.orderservice.exception.OrderConflictException;
+import com.example.orderservice.id.OrderIds;
+import com.example.orderservice.metrics.OrderMetrics;
+import com.example.orderservice.repository.OrderArchive;
+import com.example.orderservice.repository.OrderCursor;
+import com.example.orderservice.repository.OrderFilter;
 import com.example.orderservice.repository.OrderRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.kafka.clients.producer.ProducerRecord;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OrderService {
     private final OrderRepository repository;
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
     private final MongoTemplate mongoTemplate;
-    private static final String TOPIC = "orders.events";
+    private final CacheBatchEvictor cacheEvictor;
+    private final OrderMetrics metrics;
+    private final OrderStatsRollup statsRollup;
+    private final CustomerSummaryService customerSummaries;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final OrderArchive archive;
+    static final List<String> VALID_STATUSES = List.of("NEW", "IN_PROGRESS", "DELIVERED", "CANCELLED");
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int BULK_BATCH_SIZE = 1000;
+    // Allowed status transitions; DELIVERED and CANCELLED are terminal
+    static final Map<String, Set<String>> TRANSITIONS = Map.of(
+            "NEW", Set.of("IN_PROGRESS", "DELIVERED", "CANCELLED"),
+            "IN_PROGRESS", Set.of("DELIVERED", "CANCELLED"));
 
+    @Value("${app.sharding.enabled:false}")
+    private boolean sharded;
+
+    // Write-through: the first read after a write is served from the cache
+    @CachePut(value = "orders", key = "#result.id")
     @Transactional
     public OrderResponseDto create(CreateOrderDto dto) {
-        Order order = new Order();
-        order.setCustomerId(dto.getCustomerId());
-        order.setItems(dto.getItems().stream().map(this::mapToItem).collect(Collectors.toList()));
-        Order saved = repository.save(order);
+        Order saved = metrics.mongo("create", () -> repository.save(OrderMapper.newOrder(dto)));
+        statsRollup.recordCreated(List.of(saved));
+        customerSummaries.recordCreated(saved);
         log.info("Created order: {}", saved.getId());
-        return mapToDto(saved);
+        return OrderMapper.toDto(saved);
+    }
+
+    // Inserts in unordered bulk writes of at most BULK_BATCH_SIZE orders, so memory does not grow with the input.
+    public BatchResultDto createBatch(Iterator<CreateOrderDto> dtos) {
+        BatchResultDto result = new BatchResultDto();
+        List<Order> chunk = new ArrayList<>(BULK_BATCH_SIZE);
+        List<Integer> chunkIndexes = new ArrayList<>(BULK_BATCH_SIZE);
+        int index = 0;
+        while (true) {
+            CreateOrderDto dto;
+            try {
+                if (!dtos.hasNext()) {
+                    break;
+                }
+                dto = dtos.next();
+            } catch (RuntimeJsonMappingException e) {
+                // The reader skips to the end of the bad item, so only this one fails
+                result.failure(index++, null, "Invalid order: " + e.getMessage());
+                continue;
+            } catch (RuntimeException e) {
+                // Malformed JSON cannot be skipped: reading stops here and the orders read so far are still inserted
+                result.failure(index, null, "Unreadable request body: " + e.getMessage());
+                break;
+            }
+            if (dto == null || dto.getCustomerId() == null || dto.getItems() == null || dto.getItems().isEmpty()) {
+                result.failure(index, null, "customerId and items are required");
+            } else {
+                chunk.add(OrderMapper.newOrder(dto));
+                chunkIndexes.add(index);
+            }
+            index++;
+            if (chunk.size() == BULK_BATCH_SIZE) {
+                insertChunk(chunk, chunkIndexes, result);
+                chunk.clear();
+                chunkIndexes.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, chunkIndexes, result);
+        }
+        log.info("Batch create: {} created, {} failed", result.getSucceeded(), result.getFailed());
+        return result;
+    }
+
+    private void insertChunk(List<Order> chunk, List<Integer> chunkIndexes, BatchResultDto result) {
+        Set<Integer> failedPositions = new HashSet<>();
+        try {
+            // Bulk inserts skip version initialisation, so start the counter here like save() does
+            chunk.forEach(order -> order.setVersion(0L));
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class).insert(chunk).execute();
+        } catch (BulkOperationException e) {
+            // Unordered mode: every document without a write error was inserted
+            for (BulkWriteError error : e.getErrors()) {
+                failedPositions.add(error.getIndex());
+                result.failure(chunkIndexes.get(error.getIndex()), chunk.get(error.getIndex()).getId(), error.getMessage());
+            }
+        }
+        List<Order> inserted = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (!failedPositions.contains(i)) {
+                inserted.add(chunk.get(i));
+                result.success(chunkIndexes.get(i), chunk.get(i).getId(), "CREATED");
+            }
+        }
+        statsRollup.recordCreated(inserted);
+        customerSummaries.recordAllCreated(inserted);
     }
 
-    @Cacheable(value = "orders", key = "#id")
+    // sync: concurrent misses for the same id share one load (single-flight in TwoTierCache)
+    @Cacheable(value = "orders", key = "#id", sync = true)
     public OrderResponseDto getById(String id) {
-        Order order = repository.findById(id).orElseThrow(() -> new RuntimeException("Order not found"));
-        return mapToDto(order);
+        return loadById(id);
+    }
+
+    // The order as its response body, from the same "orders" cache entry as getById (see OrderJsonCache)
+    public OrderJson getJsonById(String id) {
+        if (cacheManager.getCache(OrderJsonCacheManager.CACHE_NAME) instanceof OrderJsonCache cache) {
+            return cache.getJson(id, () -> loadById(id));
+        }
+        return OrderJson.of(loadById(id), objectMapper.getFactory());
+    }
+
+    private OrderResponseDto loadById(String id) {
+        // Orders moved out of the hot collection by OrderArchiver are still found
+        Order order = metrics.mongo("getById", () -> repository.findById(id).or(() -> archive.findById(id)))
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        return OrderMapper.toDto(order);
+    }
+
+    public OrderPageDto getFiltered(OrderFilter filter, String cursor, Integer limit) {
+        OrderPage page = findFiltered(filter, cursor, limit);
+        return new OrderPageDto(page.orders().stream().map(OrderMapper::toDto).collect(Collectors.toList()), page.nextCursor());
     }
 
-    public List<OrderResponseDto> getFiltered(String status, String customerId) {
-        List<Order> orders;
-        if (status != null && customerId != null) {
-            orders = repository.findByStatusAndCustomerId(status, customerId);
-        } else if (status != null) {
-            orders = repository.findByStatus(status);
-        } else {
-            orders = repository.findAll();
+    // Entities as read, for callers that render them directly (see OrderJsonWriter)
+    public OrderPage findFiltered(OrderFilter filter, String cursor, Integer limit) {
+        filter.validate();
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        OrderCursor after = cursor == null ? null : OrderCursor.decode(cursor);
+
+        // Fetch one extra document to know whether another page exists
+        List<Order> orders = metrics.mongo("getFiltered", () -> repository.findPage(filter, after, pageSize + 1));
+        String nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = orders.subList(0, pageSize);
+            nextCursor = OrderCursor.after(orders.get(pageSize - 1)).encode();
         }
-        return orders.stream().map(this::mapToDto).collect(Collectors.toList());
+        return new OrderPage(orders, nextCursor);
+    }
+
+    // Lazily reads documents as the Mongo cursor advances; callers must close the stream.
+    public Stream<Order> streamFiltered(OrderFilter filter) {
+        filter.validate();
+        return repository.streamFiltered(filter);
+    }
+
+    public record OrderPage(List<Order> orders, String nextCursor) {
     }
 
+    // Evicts rather than puts: two concurrent transitions could land their puts in reverse order and leave the
+    // older status cached for its whole TTL. The next read loads the committed order.
     @CacheEvict(value = "orders", key = "#id")
     @Transactional
     public OrderResponseDto updateStatus(String id, UpdateStatusDto dto) {
-        Order order = repository.findById(id).orElseThrow(() -> new RuntimeException("Order not found"));
-        String oldStatus = order.getStatus();
         String newStatus = dto.getStatus();
-        if (!List.of("NEW", "IN_PROGRESS", "DELIVERED", "CANCELLED").contains(newStatus)) {
+        if (!VALID_STATUSES.contains(newStatus)) {
+            throw new IllegalArgumentException("Invalid status");
+        }
+
+        // One round trip: the transition/version guard, the status change and its outbox event are applied
+        // atomically, and the returned pre-image carries the old status. OrderEventRelay publishes the event
+        // to Kafka off the request path.
+        LocalDateTime now = LocalDateTime.now();
+        Order previous = metrics.mongo("updateStatus", () -> transitionTarget(id)
+                .map(target -> mongoTemplate.findAndModify(transitionQuery(target, newStatus, dto.getExpectedVersion()),
+                        statusTransition(newStatus, now), Order.class))
+                .orElse(null));
+        if (previous == null) {
+            // Only on rejection: read the order to tell the caller why
+            // Archived orders are terminal, so they are rejected as an invalid transition
+            throw transitionFailure(repository.findById(id).or(() -> archive.findById(id)).orElse(null),
+                    newStatus, dto.getExpectedVersion());
+        }
+        log.info("Queued event for order {}: {} -> {}", id, previous.getStatus(), newStatus);
+        statsRollup.recordTransitions(List.of(previous), newStatus);
+        customerSummaries.recordTransition(previous, newStatus);
+        return OrderMapper.toDto(applyTransition(previous, newStatus, now));
+    }
+
+    // Sharded (Mongo 7.0): findAndModify must carry the whole shard key, which the id alone never gives (and older
+    // UUID ids not even the customer), so read it first. Empty when the order is not in the hot collection.
+    private Optional<Criteria> transitionTarget(String id) {
+        if (!sharded) {
+            return Optional.of(OrderIds.where(id));
+        }
+        return Optional.ofNullable(mongoTemplate.findOne(OrderIds.shardKeyQuery(id), Order.class)).map(OrderIds::shardKey);
+    }
+
+    public BatchResultDto bulkUpdateStatus(BulkUpdateStatusDto dto) {
+        String newStatus = dto.getStatus();
+        if (!VALID_STATUSES.contains(newStatus)) {
             throw new IllegalArgumentException("Invalid status");
         }
+        if (dto.getIds() == null || dto.getIds().isEmpty()) {
+            throw new IllegalArgumentException("ids are required");
+        }
+
+        BatchResultDto result = new BatchResultDto();
+        // Each order is transitioned once; a repeated id fails at its own index
+        Map<String, Integer> firstIndexes = new LinkedHashMap<>();
+        for (int i = 0; i < dto.getIds().size(); i++) {
+            String id = dto.getIds().get(i);
+            Integer first = firstIndexes.putIfAbsent(id, i);
+            if (first != null) {
+                result.failure(i, id, "Duplicate of index " + first);
+            }
+        }
+        List<String> ids = new ArrayList<>(firstIndexes.keySet());
+        List<Integer> indexes = new ArrayList<>(firstIndexes.values());
+        for (int from = 0; from < ids.size(); from += BULK_BATCH_SIZE) {
+            int to = Math.min(from + BULK_BATCH_SIZE, ids.size());
+            bulkUpdateChunk(ids.subList(from, to), indexes.subList(from, to), newStatus, result);
+        }
+        log.info("Bulk status update to {}: {} updated, {} failed", newStatus, result.getSucceeded(), result.getFailed());
+        return result;
+    }
+
+    private void bulkUpdateChunk(List<String> chunk, List<Integer> indexes, String newStatus, BatchResultDto result) {
+        // One read for the current statuses (needed for the events and read models), one bulk write for the whole chunk
+        Query current = Query.query(OrderIds.whereIn(chunk));
+        current.fields().include("status", "customerId", "createdAt", "items");
+        Map<String, Order> currentOrders = mongoTemplate.find(current, Order.class).stream()
+                .collect(Collectors.toMap(Order::getId, order -> order));
+        Map<String, String> oldStatuses = currentOrders.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getStatus()));
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        List<String> attempted = new ArrayList<>();
+        for (String id : chunk) {
+            String oldStatus = oldStatuses.get(id);
+            if (oldStatus == null || !isAllowed(oldStatus, newStatus)) {
+                continue;
+            }
+            // Guarded on the status that was read so a concurrent change is not overwritten with a wrong event
+            bulk.updateOne(Query.query(OrderIds.where(id).and("status").is(oldStatus)),
+                    statusUpdate(oldStatus, newStatus, now));
+            attempted.add(id);
+        }
+
+        Set<String> updated = new HashSet<>(attempted);
+        if (!attempted.isEmpty()) {
+            BulkWriteResult writeResult = bulk.execute();
+            if (writeResult.getMatchedCount() < attempted.size()) {
+                // Only on lost races: find out which guarded updates did not apply
+                Query check = Query.query(OrderIds.whereIn(attempted).and("status").ne(newStatus));
+                check.fields().include("_id");
+                mongoTemplate.find(check, Order.class).forEach(order -> updated.remove(order.getId()));
+            }
+            cacheEvictor.evictAll("orders", attempted);
+            List<Order> previous = updated.stream().map(currentOrders::get).toList();
+            statsRollup.recordTransitions(previous, newStatus);
+            customerSummaries.recordAllTransitions(previous, newStatus);
+        }
 
-        // Update in Mongo
-        order.setStatus(newStatus);
-        order.setUpdatedAt(LocalDateTime.now());
-        repository.save(order);
+        for (int i = 0; i < chunk.size(); i++) {
+            String id = chunk.get(i);
+            if (updated.contains(id)) {
+                result.success(indexes.get(i), id, "UPDATED");
+            } else if (!oldStatuses.containsKey(id)) {
+                result.failure(indexes.get(i), id, "Order not found");
+            } else if (!isAllowed(oldStatuses.get(id), newStatus)) {
+                result.failure(indexes.get(i), id, "Invalid transition " + oldStatuses.get(id) + " -> " + newStatus);
+            } else {
+                result.failure(indexes.get(i), id, "Status changed concurrently");
+            }
+        }
+    }
 
-        // Publish event
-        EventDto event = new EventDto();
-        event.setOrderId(id);
+    static Update statusUpdate(String oldStatus, String newStatus, LocalDateTime now) {
+        Order.OutboxEvent event = new Order.OutboxEvent();
+        event.setEventId(UUID.randomUUID().toString());
         event.setOldStatus(oldStatus);
         event.setNewStatus(newStatus);
-        event.setTimestamp(LocalDateTime.now());
-        try {
-            String message = objectMapper.writeValueAsString(event);
-            kafkaTemplate.send(new ProducerRecord<>(TOPIC, id, message));
-            log.info("Published event for order {}: {} -> {}", id, oldStatus, newStatus);
-        } catch (Exception e) {
-            log.error("Error publishing event", e);
-            throw new RuntimeException("Failed to publish event", e);
-        }
-
-        return mapToDto(order);
-    }
-
-    private Order.Item mapToItem(com.example.orderservice.dto.ItemDto dtoItem) {
-        Order.Item item = new Order.Item();
-        item.setSku(dtoItem.getSku());
-        item.setQuantity(dtoItem.getQuantity());
-        item.setPrice(dtoItem.getPrice());
-        return item;
-    }
-
-    private OrderResponseDto mapToDto(Order order) {
-        OrderResponseDto dto = new OrderResponseDto();
-        dto.setId(order.getId());
-        dto.setCustomerId(order.getCustomerId());
-        dto.setStatus(order.getStatus());
-        dto.setItems(order.getItems().stream().map(this::mapToItemDto).collect(Collectors.toList()));
-        dto.setCreatedAt(order.getCreatedAt());
-        dto.setUpdatedAt(order.getUpdatedAt());
-        return dto;
-    }
-
-    private com.example.orderservice.dto.ItemDto mapToItemDto(Order.Item item) {
-        com.example.orderservice.dto.ItemDto dto = new com.example.orderservice.dto.ItemDto();
-        dto.setSku(item.getSku());
-        dto.setQuantity(item.getQuantity());
-        dto.setPrice(item.getPrice());
-        return dto;
+        event.setTimestamp(now);
+        return new Update().set("status", newStatus).set("updatedAt", now).inc("version", 1).push("outbox", event);
+    }
+
+    static boolean isAllowed(String oldStatus, String newStatus) {
+        return TRANSITIONS.getOrDefault(oldStatus, Set.of()).contains(newStatus);
+    }
+
+    // Matches only while the transition is allowed from the current status (and the version is the expected one)
+    static Query transitionQuery(String id, String newStatus, Long expectedVersion) {
+        return transitionQuery(OrderIds.where(id), newStatus, expectedVersion);
+    }
+
+    static Query transitionQuery(Criteria target, String newStatus, Long expectedVersion) {
+        List<String> sources = TRANSITIONS.entrySet().stream()
+                .filter(entry -> entry.getValue().contains(newStatus))
+                .map(Map.Entry::getKey)
+                .toList();
+        Criteria criteria = target.and("status").in(sources);
+        if (expectedVersion != null) {
+            criteria.and("version").is(expectedVersion);
+        }
+        Query query = Query.query(criteria);
+        // The outbox is not part of the response; don't ship it back
+        query.fields().exclude("outbox");
+        return query;
+    }
+
+    // Pipeline update so the outbox event can read the old status ($status) in the same write
+    static AggregationUpdate statusTransition(String newStatus, LocalDateTime now) {
+        // Same conversion the mapping layer applies to LocalDateTime fields
+        Date timestamp = Date.from(now.atZone(ZoneId.systemDefault()).toInstant());
+        Document event = new Document("eventId", UUID.randomUUID().toString())
+                .append("oldStatus", "$status")
+                .append("newStatus", newStatus)
+                .append("timestamp", timestamp);
+        Document set = new Document("status", newStatus)
+                .append("updatedAt", timestamp)
+                .append("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L)))
+                .append("outbox", new Document("$concatArrays",
+                        List.of(new Document("$ifNull", List.of("$outbox", List.of())), List.of(event))));
+        return AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+    }
+
+    static Order applyTransition(Order previous, String newStatus, LocalDateTime now) {
+        previous.setStatus(newStatus);
+        previous.setUpdatedAt(now);
+        previous.setVersion(previous.getVersion() == null ? 1L : previous.getVersion() + 1);
+        return previous;
+    }
+
+    static RuntimeException transitionFailure(Order current, String newStatus, Long expectedVersion) {
+        if (current == null) {
+            return new RuntimeException("Order not found");
+        }
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            return new OrderConflictException("Order version is " + current.getVersion() + ", expected " + expectedVersion);
+        }
+        if (!isAllowed(current.getStatus(), newStatus)) {
+            return new OrderConflictException("Invalid transition " + current.getStatus() + " -> " + newStatus);
+        }
+        return new OrderConflictException("Order was modified concurrently");
     }
 }
\ No newline at end of file
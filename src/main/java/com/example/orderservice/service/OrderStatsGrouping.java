@@ -0,0 +1,51 @@
+package com.example.orderservice.service;
+
+import org.bson.Document;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Locale;
+
+/**
+ * Group key of the order analytics. Time buckets are truncated in the application time zone,
+ * the zone createdAt values are stored from.
+ */
+public enum OrderStatsGrouping {
+    STATUS,
+    CUSTOMER,
+    DAY,
+    HOUR;
+
+    public static OrderStatsGrouping parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid groupBy, expected one of status, customer, day, hour");
+        }
+    }
+
+    // $group _id expression over order documents
+    Object keyExpression(ZoneId zone) {
+        return switch (this) {
+            case STATUS -> "$status";
+            case CUSTOMER -> "$customerId";
+            case DAY -> truncatedCreatedAt("day", zone);
+            case HOUR -> truncatedCreatedAt("hour", zone);
+        };
+    }
+
+    static Document truncatedCreatedAt(String unit, ZoneId zone) {
+        return new Document("$dateTrunc", new Document("date", "$createdAt")
+                .append("unit", unit)
+                .append("timezone", mongoTimezone(zone)));
+    }
+
+    // Mongo takes Olson ids and "+hh:mm" offsets, but not "Z"
+    static String mongoTimezone(ZoneId zone) {
+        ZoneId normalized = zone.normalized();
+        if (normalized instanceof ZoneOffset offset) {
+            return offset.getTotalSeconds() == 0 ? "UTC" : offset.getId();
+        }
+        return normalized.getId();
+    }
+}
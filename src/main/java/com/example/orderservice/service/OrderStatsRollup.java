@@ -0,0 +1,294 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.dto.OrderStatsDto;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.exception.OrderConflictException;
+import com.example.orderservice.repository.OrderArchive;
+import com.example.orderservice.repository.OrderFilter;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static com.example.orderservice.service.OrderAnalyticsService.stage;
+
+/**
+ * Optional precomputed count and revenue per creation day and status ({@value #COLLECTION}), kept up to date
+ * with $inc upserts by the servlet write paths. A status change moves the order between the status buckets
+ * of its creation day. Updates are not atomic with the order writes and only log on failure: {@link #rebuild()}
+ * recomputes the rollup from the orders collection. It is only run on request (POST /orders/analytics/rollup),
+ * one node at a time under a lease in {@value #BUILD_COLLECTION}, and the rollup serves no queries until a
+ * rebuild has completed once. The rebuild does not overwrite buckets incremented while it runs, as the
+ * recomputed count may not include that change (see {@link #rebuildBuckets}).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatsRollup {
+    static final String COLLECTION = "order_stats_daily";
+    static final String BUILD_COLLECTION = "order_stats_builds";
+    static final String STAGING_COLLECTION = "order_stats_daily_staging";
+    // Set by the rebuild's $merge on the buckets it left alone
+    static final String REBUILD_SKIPPED = "rebuildSkippedAt";
+    // Longer than any rebuild; only matters when the node running one dies
+    private static final Duration BUILD_LEASE = Duration.ofHours(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderArchive archive;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile boolean built;
+
+    @Value("${app.analytics.rollup.enabled:false}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Building on start would run the rebuild on every node at once, so the first build is left to the operator
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (enabled && !isBuilt()) {
+            log.warn("Order stats rollup has not been built, POST /orders/analytics/rollup to build it");
+        }
+    }
+
+    // Recomputes every bucket; the ones incremented while it ran are recomputed once more, and logged if they are
+    // still being written
+    public void rebuild() {
+        if (!acquireBuildLease()) {
+            throw new OrderConflictException("Order stats rollup is already being rebuilt");
+        }
+        List<Date> skipped;
+        try {
+            rebuildBuckets(new Criteria(), new Document());
+            skipped = takeSkipped();
+            if (!skipped.isEmpty()) {
+                rebuildBuckets(ordersCreatedOn(skipped), new Document("_id.day", new Document("$in", skipped)));
+                skipped = takeSkipped();
+            }
+            builds().updateOne(Filters.eq("_id", COLLECTION), Updates.combine(
+                    Updates.set("builtAt", new Date()), Updates.unset("owner"), Updates.unset("until")));
+        } catch (RuntimeException e) {
+            builds().updateOne(Filters.and(Filters.eq("_id", COLLECTION), Filters.eq("owner", nodeId)),
+                    Updates.combine(Updates.unset("owner"), Updates.unset("until")));
+            throw e;
+        }
+        built = true;
+        if (skipped.isEmpty()) {
+            log.info("Rebuilt order stats rollup");
+        } else {
+            log.warn("Rebuilt order stats rollup except the buckets of {} days incremented while rebuilding: {}",
+                    skipped.size(), skipped);
+        }
+    }
+
+    // Recomputes the buckets of the matching orders into STAGING_COLLECTION and $merges them into the rollup, except
+    // the ones incremented since the recomputation started ($$NOW): those keep their counters and get REBUILD_SKIPPED
+    private void rebuildBuckets(Criteria orders, Document buckets) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (!orders.getCriteriaObject().isEmpty()) {
+            stages.add(Aggregation.match(orders));
+        }
+        stages.addAll(archive.unionWith(orders));
+        stages.add(stage("$group", new Document("_id", new Document("day", OrderStatsGrouping.DAY.keyExpression(zone))
+                .append("status", "$status"))
+                .append("count", new Document("$sum", 1))
+                .append("revenue", new Document("$sum", OrderAnalyticsService.ORDER_REVENUE))));
+        // Existing buckets without orders left come out as zero instead of keeping a drifted count
+        stages.add(stage("$unionWith", new Document("coll", COLLECTION).append("pipeline", List.of(
+                new Document("$match", buckets),
+                new Document("$project", new Document("count", new Document("$literal", 0))
+                        .append("revenue", new Document("$literal", 0.0)))))));
+        stages.add(stage("$group", new Document("_id", "$_id")
+                .append("count", new Document("$sum", "$count"))
+                .append("revenue", new Document("$sum", "$revenue"))));
+        stages.add(stage("$set", new Document("updatedAt", "$$NOW")));
+        stages.add(Aggregation.out(STAGING_COLLECTION));
+        mongoTemplate.aggregate(Aggregation.newAggregation(stages)
+                        .withOptions(AggregationOptions.builder().allowDiskUse(true).build()),
+                mongoTemplate.getCollectionName(Order.class), Document.class);
+
+        Document updatedSinceStart = new Document("$gte", List.of("$updatedAt", "$$new.updatedAt"));
+        Document markSkipped = new Document("$mergeObjects",
+                List.of("$$ROOT", new Document(REBUILD_SKIPPED, "$$new.updatedAt")));
+        mongoTemplate.aggregate(Aggregation.newAggregation(stage("$merge", new Document("into", COLLECTION)
+                        .append("whenMatched", List.of(new Document("$replaceWith",
+                                new Document("$cond", List.of(updatedSinceStart, markSkipped, "$$new")))))
+                        .append("whenNotMatched", "insert"))),
+                STAGING_COLLECTION, Document.class);
+        mongoTemplate.dropCollection(STAGING_COLLECTION);
+    }
+
+    // Days of the buckets the last rebuildBuckets left alone, clearing their mark
+    private List<Date> takeSkipped() {
+        List<Document> skipped = mongoTemplate.getCollection(COLLECTION)
+                .find(Filters.exists(REBUILD_SKIPPED))
+                .projection(new Document("_id", 1))
+                .into(new ArrayList<>());
+        if (skipped.isEmpty()) {
+            return List.of();
+        }
+        mongoTemplate.getCollection(COLLECTION).updateMany(
+                Filters.in("_id", skipped.stream().map(bucket -> bucket.get("_id")).toList()), Updates.unset(REBUILD_SKIPPED));
+        return skipped.stream().map(bucket -> bucket.get("_id", Document.class).getDate("day")).distinct().toList();
+    }
+
+    private Criteria ordersCreatedOn(List<Date> days) {
+        return new Criteria().orOperator(days.stream()
+                .map(day -> day == null
+                        ? Criteria.where("createdAt").is(null)
+                        : Criteria.where("createdAt").gte(day).lt(Date.from(day.toInstant().atZone(zone).plusDays(1).toInstant())))
+                .toList());
+    }
+
+    // False while another node holds an unexpired lease
+    private boolean acquireBuildLease() {
+        Date now = new Date();
+        try {
+            builds().updateOne(
+                    Filters.and(Filters.eq("_id", COLLECTION),
+                            Filters.or(Filters.exists("until", false), Filters.lt("until", now))),
+                    Updates.combine(Updates.set("owner", nodeId),
+                            Updates.set("until", new Date(now.getTime() + BUILD_LEASE.toMillis()))),
+                    new UpdateOptions().upsert(true));
+            return true;
+        } catch (MongoWriteException e) {
+            // The upsert ran into the lease of the running rebuild
+            if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                throw e;
+            }
+            return false;
+        }
+    }
+
+    // Until the first rebuild the buckets only hold the increments since the rollup was enabled
+    private boolean isBuilt() {
+        if (!built) {
+            Document build = builds().find(Filters.eq("_id", COLLECTION)).first();
+            built = build != null && build.get("builtAt") != null;
+        }
+        return built;
+    }
+
+    private MongoCollection<Document> builds() {
+        return mongoTemplate.getCollection(BUILD_COLLECTION);
+    }
+
+    public void recordCreated(Collection<Order> orders) {
+        if (!enabled || orders.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        for (Order order : orders) {
+            bulk.upsert(bucket(order.getCreatedAt(), order.getStatus()), increment(1, OrderMapper.total(order)));
+        }
+        execute(bulk);
+    }
+
+    // previous: the orders as they were before the change (status, createdAt and items are read)
+    public void recordTransitions(Collection<Order> previous, String newStatus) {
+        if (!enabled || previous.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        for (Order order : previous) {
+            double revenue = OrderMapper.total(order);
+            bulk.upsert(bucket(order.getCreatedAt(), order.getStatus()), increment(-1, -revenue));
+            bulk.upsert(bucket(order.getCreatedAt(), newStatus), increment(1, revenue));
+        }
+        execute(bulk);
+    }
+
+    // Rollup buckets are whole days per status, so other filters and groupings need the orders collection
+    boolean canServe(OrderFilter filter, OrderStatsGrouping groupBy) {
+        return enabled
+                && filter.getCustomerId() == null
+                && (groupBy == OrderStatsGrouping.STATUS || groupBy == OrderStatsGrouping.DAY)
+                && isStartOfDay(filter.getFrom())
+                && isStartOfDay(filter.getTo())
+                && isBuilt();
+    }
+
+    List<OrderStatsDto> query(OrderFilter filter, OrderStatsGrouping groupBy) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (filter.getStatus() != null) {
+            criteria.add(Criteria.where("_id.status").is(filter.getStatus()));
+        }
+        if (filter.getFrom() != null || filter.getTo() != null) {
+            Criteria day = Criteria.where("_id.day");
+            if (filter.getFrom() != null) {
+                day.gte(toDate(filter.getFrom()));
+            }
+            if (filter.getTo() != null) {
+                day.lt(toDate(filter.getTo()));
+            }
+            criteria.add(day);
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria)),
+                stage("$group", new Document("_id", groupBy == OrderStatsGrouping.STATUS ? "$_id.status" : "$_id.day")
+                        .append("count", new Document("$sum", "$count"))
+                        .append("revenue", new Document("$sum", "$revenue"))),
+                // Buckets emptied by status changes stay behind with a zero count
+                stage("$match", new Document("count", new Document("$gt", 0))),
+                stage("$sort", new Document("_id", 1)));
+        return OrderAnalyticsService.toStats(
+                mongoTemplate.aggregate(aggregation, COLLECTION, Document.class).getMappedResults(), zone);
+    }
+
+    private void execute(BulkOperations bulk) {
+        try {
+            bulk.execute();
+        } catch (RuntimeException e) {
+            log.warn("Order stats rollup update failed, rebuild it to resync", e);
+        }
+    }
+
+    // Same _id layout as the $group of rebuildBuckets(): {day, status}, with a null day for orders without createdAt
+    private Query bucket(LocalDateTime createdAt, String status) {
+        Date day = createdAt == null ? null : toDate(createdAt.toLocalDate().atStartOfDay());
+        return Query.query(Criteria.where("_id").is(new Document("day", day).append("status", status)));
+    }
+
+    private static Update increment(long count, double revenue) {
+        // Server clock, as the $$NOW the rebuild compares it with
+        return new Update().inc("count", count).inc("revenue", revenue).currentDate("updatedAt");
+    }
+
+    private Date toDate(LocalDateTime value) {
+        return Date.from(value.atZone(zone).toInstant());
+    }
+
+    private static boolean isStartOfDay(LocalDateTime value) {
+        return value == null || value.toLocalTime().equals(LocalTime.MIDNIGHT);
+    }
+}
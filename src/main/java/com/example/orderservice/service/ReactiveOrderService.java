@@ -0,0 +1,168 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.cache.CacheInvalidationPublisher;
+import com.example.orderservice.cache.OrderJson;
+import com.example.orderservice.config.CacheTtlProperties;
+import com.example.orderservice.dto.CreateOrderDto;
+import com.example.orderservice.dto.OrderPageDto;
+import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.dto.UpdateStatusDto;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.id.OrderIds;
+import com.example.orderservice.repository.OrderCursor;
+import com.example.orderservice.repository.OrderFilter;
+import com.example.orderservice.repository.ReactiveOrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Non-blocking counterpart of {@link OrderService}, active when the app runs on WebFlux.
+ * Uses the same Redis keys and value format as the "orders" cache and the same outbox for events.
+ * Customer summaries are updated as on the servlet stack, on a blocking-friendly scheduler; the daily
+ * stats rollup is not.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveOrderService {
+    private static final String CACHE_NAME = "orders";
+
+    private final ReactiveOrderRepository repository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ReactiveRedisTemplate<String, Object> cacheTemplate;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final CacheTtlProperties cacheTtl;
+    private final RedisCacheConfiguration cacheConfiguration;
+    private final ObjectMapper objectMapper;
+    private final CustomerSummaryService customerSummaries;
+
+    @Value("${app.sharding.enabled:false}")
+    private boolean sharded;
+
+    public Mono<OrderResponseDto> create(CreateOrderDto dto) {
+        return repository.save(OrderMapper.newOrder(dto))
+                .doOnNext(saved -> log.info("Created order: {}", saved.getId()))
+                .flatMap(saved -> blocking(() -> customerSummaries.recordCreated(saved)).thenReturn(saved))
+                .map(OrderMapper::toDto)
+                .flatMap(created -> writeThrough(created).thenReturn(created));
+    }
+
+    public Mono<OrderResponseDto> getById(String id) {
+        String key = cacheKey(id);
+        Mono<OrderResponseDto> load = Mono.defer(() -> repository.findById(id))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Order not found")))
+                .map(OrderMapper::toDto)
+                .flatMap(dto -> cacheTemplate.opsForValue().set(key, dto, cacheTtl.ttl(CACHE_NAME, dto)).thenReturn(dto));
+        // Servlet nodes in order-json mode cache the response body instead of the DTO
+        return cacheTemplate.opsForValue().get(key)
+                .map(cached -> cached instanceof OrderJson json ? json.toDto(objectMapper) : (OrderResponseDto) cached)
+                .switchIfEmpty(load);
+    }
+
+    public Mono<OrderPageDto> getFiltered(OrderFilter filter, String cursor, Integer limit) {
+        int pageSize = limit == null ? OrderService.DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > OrderService.MAX_PAGE_SIZE) {
+            return Mono.error(new IllegalArgumentException("Limit must be between 1 and " + OrderService.MAX_PAGE_SIZE));
+        }
+        OrderCursor after;
+        try {
+            filter.validate();
+            after = cursor == null ? null : OrderCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+
+        // Fetch one extra document to know whether another page exists
+        return repository.findPage(filter, after, pageSize + 1)
+                .collectList()
+                .map(orders -> {
+                    String nextCursor = null;
+                    if (orders.size() > pageSize) {
+                        orders = orders.subList(0, pageSize);
+                        nextCursor = OrderCursor.after(orders.get(pageSize - 1)).encode();
+                    }
+                    return new OrderPageDto(orders.stream().map(OrderMapper::toDto).toList(), nextCursor);
+                });
+    }
+
+    public Flux<OrderResponseDto> streamFiltered(OrderFilter filter) {
+        return Mono.fromRunnable(filter::validate)
+                .thenMany(repository.streamFiltered(filter))
+                .map(OrderMapper::toDto);
+    }
+
+    public Mono<OrderResponseDto> updateStatus(String id, UpdateStatusDto dto) {
+        String newStatus = dto.getStatus();
+        if (!OrderService.VALID_STATUSES.contains(newStatus)) {
+            return Mono.error(new IllegalArgumentException("Invalid status"));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return transitionTarget(id)
+                .flatMap(target -> mongoTemplate.findAndModify(OrderService.transitionQuery(target, newStatus, dto.getExpectedVersion()),
+                        OrderService.statusTransition(newStatus, now), Order.class))
+                .switchIfEmpty(Mono.defer(() -> repository.findById(id)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .flatMap(current -> Mono.<Order>error(OrderService.transitionFailure(
+                                current.orElse(null), newStatus, dto.getExpectedVersion())))))
+                .doOnNext(previous -> log.info("Queued event for order {}: {} -> {}", id, previous.getStatus(), newStatus))
+                .flatMap(previous -> blocking(() -> customerSummaries.recordTransition(previous, newStatus))
+                        .thenReturn(previous))
+                .flatMap(previous -> {
+                    OrderResponseDto updated = OrderMapper.toDto(OrderService.applyTransition(previous, newStatus, now));
+                    // Evict, as OrderService.updateStatus does: a put could be overtaken by a concurrent older one
+                    return evict(id).thenReturn(updated);
+                });
+    }
+
+    // Whole shard key when sharded, as in OrderService
+    private Mono<Criteria> transitionTarget(String id) {
+        if (!sharded) {
+            return Mono.just(OrderIds.where(id));
+        }
+        return mongoTemplate.findOne(OrderIds.shardKeyQuery(id), Order.class).map(OrderIds::shardKey);
+    }
+
+    // Same as a put on the servlet "orders" cache: also tells servlet nodes sharing Redis to drop their local copy
+    private Mono<Void> writeThrough(OrderResponseDto order) {
+        return cacheTemplate.opsForValue().set(cacheKey(order.getId()), order, cacheTtl.ttl(CACHE_NAME, order))
+                .then(redisTemplate.convertAndSend(CacheInvalidationPublisher.CHANNEL,
+                        invalidationPublisher.message(CACHE_NAME, List.of(order.getId()))))
+                .then();
+    }
+
+    // The key RedisCache writes for the "orders" cache, prefix settings included (see CacheConfig)
+    private String cacheKey(String id) {
+        return cacheConfiguration.usePrefix() ? cacheConfiguration.getKeyPrefixFor(CACHE_NAME) + id : id;
+    }
+
+    // CustomerSummaryService uses the blocking driver and logs its own failures
+    private static Mono<Void> blocking(Runnable update) {
+        return Mono.fromRunnable(update).subscribeOn(Schedulers.boundedElastic()).then();
+    }
+
+    private Mono<Void> evict(String id) {
+        return cacheTemplate.delete(cacheKey(id))
+                .then(redisTemplate.convertAndSend(CacheInvalidationPublisher.CHANNEL,
+                        invalidationPublisher.message(CACHE_NAME, List.of(id))))
+                .then();
+    }
+}
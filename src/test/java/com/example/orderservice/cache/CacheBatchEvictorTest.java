@@ -0,0 +1,78 @@
+package com.example.orderservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.cache.CacheKeyPrefix;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheBatchEvictorTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private CacheInvalidationPublisher invalidationPublisher;
+
+    @Test
+    void evictAll_RedisBacked_OneDeleteWithTheCachesOwnPrefix() {
+        RedisCache redis = mock(RedisCache.class);
+        when(redis.getCacheConfiguration()).thenReturn(RedisCacheConfiguration.defaultCacheConfig()
+                .computePrefixWith(CacheKeyPrefix.prefixed("v2:")));
+        com.github.benmanes.caffeine.cache.Cache<Object, Cache.ValueWrapper> local = Caffeine.newBuilder().build();
+        TwoTierCache twoTier = new TwoTierCache("orders", local, redis, invalidationPublisher, new SimpleMeterRegistry(),
+                Duration.ofSeconds(10), 0, Runnable::run);
+        local.put("a", () -> "order");
+        when(cacheManager.getCache("orders")).thenReturn(new OrderJsonCache(twoTier, new ObjectMapper(), false));
+
+        new CacheBatchEvictor(redisTemplate, cacheManager, invalidationPublisher).evictAll("orders", List.of("a", "b"));
+
+        verify(redisTemplate).delete(List.of("v2:orders::a", "v2:orders::b"));
+        verify(redis, never()).evict(any());
+        assertNull(local.getIfPresent("a"));
+        verify(invalidationPublisher).publish("orders", List.of("a", "b"));
+    }
+
+    @Test
+    void evictAll_PrefixDisabled_DeletesBareKeys() {
+        RedisCache redis = mock(RedisCache.class);
+        when(redis.getCacheConfiguration()).thenReturn(RedisCacheConfiguration.defaultCacheConfig().disableKeyPrefix());
+        when(cacheManager.getCache("customerSummaries")).thenReturn(redis);
+
+        new CacheBatchEvictor(redisTemplate, cacheManager, invalidationPublisher).evictAll("customerSummaries", List.of("a"));
+
+        verify(redisTemplate).delete(List.of("a"));
+    }
+
+    @Test
+    void evictAll_WithoutRedis_EvictsThroughTheCache() {
+        ConcurrentMapCache cache = new ConcurrentMapCache("customerSummaries");
+        cache.put("a", "summary");
+        when(cacheManager.getCache("customerSummaries")).thenReturn(cache);
+
+        new CacheBatchEvictor(redisTemplate, cacheManager, invalidationPublisher).evictAll("customerSummaries", List.of("a", "b"));
+
+        assertNull(cache.get("a"));
+        verifyNoInteractions(redisTemplate, invalidationPublisher);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.orderservice.cache;
+
+import com.example.orderservice.config.CacheConfig;
+import com.example.orderservice.dto.ItemDto;
+import com.example.orderservice.dto.OrderResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCacheSerializerTest {
+
+    private final RedisSerializer<Object> json = CacheConfig.jsonValueSerializer();
+    private final OrderCacheSerializer serializer = new OrderCacheSerializer(json, 512);
+    private OrderResponseDto order;
+
+    @BeforeEach
+    void setUp() {
+        order = new OrderResponseDto();
+        order.setId("test-id");
+        order.setCustomerId("123");
+        order.setStatus("NEW");
+        order.setItems(items(2));
+        order.setCreatedAt(LocalDateTime.of(2025, 10, 19, 22, 10, 25, 123_000_000));
+        order.setUpdatedAt(null);
+        order.setVersion(7L);
+    }
+
+    @Test
+    void roundTrip_Binary() {
+        byte[] bytes = serializer.serialize(order);
+
+        assertEquals(OrderCacheSerializer.MAGIC, bytes[0]);
+        assertTrue(bytes.length < json.serialize(order).length);
+        assertEquals(order, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void roundTrip_LargeOrderIsCompressed() {
+        order.setItems(items(200));
+
+        byte[] bytes = serializer.serialize(order);
+
+        assertEquals(1, bytes[2]);
+        assertEquals(order, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void deserialize_ReadsFormat1EntriesWithoutVersion() {
+        order.setVersion(null);
+        order.setItems(null);
+        byte[] current = serializer.serialize(order);
+        // Format 1 lacks the version flag, which sits right before the trailing item count
+        int versionFlag = current.length - 5;
+        byte[] legacy = new byte[current.length - 1];
+        System.arraycopy(current, 0, legacy, 0, versionFlag);
+        System.arraycopy(current, versionFlag + 1, legacy, versionFlag, 4);
+        legacy[1] = 1;
+
+        assertEquals(order, serializer.deserialize(legacy));
+    }
+
+    @Test
+    void deserialize_ReadsLegacyJsonEntries() {
+        byte[] legacy = json.serialize(order);
+
+        assertEquals(order, serializer.deserialize(legacy));
+    }
+
+    @Test
+    void serialize_OtherValuesUseJson() {
+        byte[] bytes = serializer.serialize("plain");
+
+        assertArrayEquals(json.serialize("plain"), bytes);
+        assertEquals("plain", serializer.deserialize(bytes));
+        assertNull(serializer.deserialize(null));
+    }
+
+    @Test
+    void deserialize_TruncatedHeader_Fails() {
+        byte[] truncated = {OrderCacheSerializer.MAGIC, OrderCacheSerializer.FORMAT_VERSION};
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(truncated));
+        assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{OrderCacheSerializer.MAGIC}));
+    }
+
+    private List<ItemDto> items(int count) {
+        List<ItemDto> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ItemDto item = new ItemDto();
+            item.setSku("SKU" + i);
+            item.setQuantity(i + 1);
+            item.setPrice(10.5 * i);
+            items.add(item);
+        }
+        return items;
+    }
+}
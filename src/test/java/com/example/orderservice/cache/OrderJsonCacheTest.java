@@ -0,0 +1,101 @@
+package com.example.orderservice.cache;
+
+import com.example.orderservice.dto.ItemDto;
+import com.example.orderservice.dto.OrderResponseDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderJsonCacheTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ConcurrentMapCache delegate = new ConcurrentMapCache("orders");
+    private OrderResponseDto order;
+
+    @BeforeEach
+    void setUp() {
+        order = new OrderResponseDto();
+        order.setId("test-id");
+        order.setCustomerId("123");
+        order.setStatus("DELIVERED");
+        ItemDto item = new ItemDto();
+        item.setSku("SKU1");
+        item.setQuantity(2);
+        item.setPrice(10.5);
+        order.setItems(List.of(item));
+        order.setCreatedAt(LocalDateTime.of(2025, 10, 19, 22, 10, 25, 123_000_000));
+        order.setVersion(2L);
+    }
+
+    @Test
+    void put_JsonModeStoresResponseBody() throws Exception {
+        OrderJsonCache cache = new OrderJsonCache(delegate, objectMapper, true);
+
+        cache.put("test-id", order);
+
+        OrderJson stored = (OrderJson) delegate.get("test-id").get();
+        assertEquals(objectMapper.writeValueAsString(order), new String(stored.getBody(), StandardCharsets.UTF_8));
+        assertEquals("DELIVERED", stored.getStatus());
+        assertSame(stored, cache.getJson("test-id", () -> fail("loaded")));
+        // Everyone else still reads the DTO
+        assertEquals(order, cache.get("test-id").get());
+        assertEquals(order, cache.get("test-id", OrderResponseDto.class));
+        assertSame(stored, cache.get("test-id", OrderJson.class));
+    }
+
+    @Test
+    void getWithLoader_JsonModeStoresJsonAndReturnsDto() {
+        OrderJsonCache cache = new OrderJsonCache(delegate, objectMapper, true);
+
+        assertSame(order, cache.get("test-id", () -> order));
+
+        assertInstanceOf(OrderJson.class, delegate.get("test-id").get());
+        assertEquals(order, cache.get("test-id", () -> fail("loaded")));
+    }
+
+    @Test
+    void getJson_MissLoadsOnceAndCaches() {
+        OrderJsonCache cache = new OrderJsonCache(delegate, objectMapper, true);
+
+        OrderJson loaded = cache.getJson("test-id", () -> order);
+
+        assertSame(loaded, cache.getJson("test-id", () -> fail("loaded")));
+    }
+
+    @Test
+    void dtoMode_StoresDtoAndRendersJsonOnDemand() {
+        OrderJsonCache cache = new OrderJsonCache(delegate, objectMapper, false);
+
+        cache.put("test-id", order);
+
+        assertSame(order, delegate.get("test-id").get());
+        OrderJson json = cache.getJson("test-id", () -> fail("loaded"));
+        // Same bytes, same ETag, whichever node rendered them
+        assertEquals(OrderJson.of(order, objectMapper.getFactory()).getEtag(), json.getEtag());
+    }
+
+    @Test
+    void dtoMode_ReadsJsonEntriesWrittenInJsonMode() {
+        new OrderJsonCache(delegate, objectMapper, true).put("test-id", order);
+
+        OrderJsonCache cache = new OrderJsonCache(delegate, objectMapper, false);
+
+        assertEquals(order, cache.get("test-id", () -> fail("loaded")));
+    }
+
+    @Test
+    void etag_ChangesWithContent() {
+        String before = OrderJson.of(order, objectMapper.getFactory()).getEtag();
+        order.setStatus("CANCELLED");
+
+        assertNotEquals(before, OrderJson.of(order, objectMapper.getFactory()).getEtag());
+    }
+}
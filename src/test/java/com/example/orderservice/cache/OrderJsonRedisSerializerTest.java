@@ -0,0 +1,53 @@
+package com.example.orderservice.cache;
+
+import com.example.orderservice.config.CacheConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderJsonRedisSerializerTest {
+
+    private final RedisSerializer<Object> json = CacheConfig.jsonValueSerializer();
+    private final OrderJsonRedisSerializer serializer = new OrderJsonRedisSerializer(json);
+
+    @Test
+    void roundTrip_KeepsBodyEtagAndStatus() {
+        byte[] body = "{\"id\":\"test-id\",\"customerId\":\"ñ\"}".getBytes(StandardCharsets.UTF_8);
+
+        OrderJson read = (OrderJson) serializer.deserialize(serializer.serialize(new OrderJson(body, "\"abc\"", "NEW")));
+
+        assertArrayEquals(body, read.getBody());
+        assertEquals("\"abc\"", read.getEtag());
+        assertEquals("NEW", read.getStatus());
+    }
+
+    @Test
+    void roundTrip_NullStatus() {
+        OrderJson read = (OrderJson) serializer.deserialize(serializer.serialize(new OrderJson(new byte[]{'{', '}'}, "\"e\"", null)));
+
+        assertNull(read.getStatus());
+        assertArrayEquals(new byte[]{'{', '}'}, read.getBody());
+    }
+
+    @Test
+    void otherValues_UseDelegate() {
+        byte[] bytes = serializer.serialize("plain");
+
+        assertArrayEquals(json.serialize("plain"), bytes);
+        assertEquals("plain", serializer.deserialize(bytes));
+        assertNull(serializer.deserialize(null));
+    }
+
+    @Test
+    void deserialize_TruncatedEntry_Fails() {
+        byte[] bytes = serializer.serialize(new OrderJson("{}".getBytes(StandardCharsets.UTF_8), "\"etag\"", "NEW"));
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{OrderJsonRedisSerializer.MAGIC}));
+        assertThrows(SerializationException.class, () -> serializer.deserialize(Arrays.copyOf(bytes, 4)));
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.orderservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class TwoTierCacheManagerTest {
+
+    @Test
+    void destroy_ThroughOrderJsonWrapper_ShutsDownRefreshExecutor() throws Exception {
+        TwoTierCacheManager twoTier = new TwoTierCacheManager(new ConcurrentMapCacheManager("orders"),
+                mock(CacheInvalidationPublisher.class), new SimpleMeterRegistry(), 100, Duration.ofSeconds(5), 0.25);
+        OrderJsonCacheManager cacheManager = new OrderJsonCacheManager(twoTier, new ObjectMapper(), true);
+        ExecutorService refreshExecutor = (ExecutorService) ReflectionTestUtils.getField(twoTier, "refreshExecutor");
+
+        cacheManager.destroy();
+
+        assertTrue(refreshExecutor.isTerminated());
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.orderservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TwoTierCacheTest {
+
+    @Mock
+    private CacheInvalidationPublisher invalidationPublisher;
+
+    private ConcurrentMapCache remote;
+    private MeterRegistry meterRegistry;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remote = new ConcurrentMapCache("orders");
+        meterRegistry = new SimpleMeterRegistry();
+        cache = cache(0);
+    }
+
+    private TwoTierCache cache(double refreshAhead) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Cache.ValueWrapper> local = Caffeine.newBuilder()
+                .maximumSize(100)
+                .build();
+        // Zero ttl: with refresh-ahead enabled every hit is due for a refresh; refreshes run inline
+        return new TwoTierCache("orders", local, remote, invalidationPublisher, meterRegistry,
+                Duration.ZERO, refreshAhead, Runnable::run);
+    }
+
+    @Test
+    void get_RemoteHit_PopulatesLocalTier() {
+        remote.put("id-1", "order");
+
+        assertEquals("order", cache.get("id-1").get());
+        remote.evict("id-1");
+        assertEquals("order", cache.get("id-1").get());
+
+        assertEquals(1.0, count("local", "hit"));
+        assertEquals(1.0, count("local", "miss"));
+        assertEquals(1.0, count("remote", "hit"));
+    }
+
+    @Test
+    void get_Miss_CountsBothTiers() {
+        assertNull(cache.get("missing"));
+
+        assertEquals(1.0, count("local", "miss"));
+        assertEquals(1.0, count("remote", "miss"));
+    }
+
+    @Test
+    void evict_RemovesBothTiersAndBroadcasts() {
+        remote.put("id-1", "order");
+        cache.get("id-1");
+
+        cache.evict("id-1");
+
+        assertNull(remote.get("id-1"));
+        assertNull(cache.get("id-1"));
+        verify(invalidationPublisher).publish("orders", List.of("id-1"));
+    }
+
+    @Test
+    void evictLocal_KeepsRemoteEntry() {
+        cache.put("id-1", "order");
+
+        cache.evictLocal(List.of("id-1"));
+
+        assertEquals("order", remote.get("id-1").get());
+        assertEquals("order", cache.get("id-1").get());
+        assertEquals(1.0, count("remote", "hit"));
+    }
+
+    @Test
+    void get_ConcurrentMisses_LoadOnce() throws Exception {
+        int callers = 8;
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> cache.get("id-1", () -> {
+                    loaderCalls.incrementAndGet();
+                    release.await();
+                    return "order";
+                })));
+            }
+            // Hold the load until every other caller is waiting on it
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (loads("coalesced") < callers - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("order", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loaderCalls.get());
+        assertEquals(callers - 1, loads("coalesced"));
+        assertEquals("order", remote.get("id-1").get());
+    }
+
+    @Test
+    void get_LoaderFailure_IsNotCached() {
+        RuntimeException notFound = new RuntimeException("Order not found");
+
+        Cache.ValueRetrievalException e = assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get("id-1", () -> {
+                    throw notFound;
+                }));
+
+        assertSame(notFound, e.getCause());
+        assertEquals("order", cache.get("id-1", () -> "order"));
+    }
+
+    @Test
+    void get_RefreshDue_ServesCachedValueAndReloads() {
+        TwoTierCache refreshing = cache(1.0);
+        refreshing.get("id-1", () -> "v1");
+
+        assertEquals("v1", refreshing.get("id-1", () -> "v2"));
+
+        assertEquals("v2", refreshing.get("id-1").get());
+        assertEquals("v2", remote.get("id-1").get());
+        assertEquals(1.0, loads("refresh"));
+    }
+
+    @Test
+    void evict_DuringLoad_DoesNotStoreLoadedValue() {
+        assertEquals("stale", cache.get("id-1", () -> {
+            cache.evict("id-1");
+            return "stale";
+        }));
+
+        assertNull(remote.get("id-1"));
+        assertNull(cache.get("id-1"));
+    }
+
+    @Test
+    void evictLocal_DuringRemoteRead_DoesNotFillLocalTier() {
+        remote = new ConcurrentMapCache("orders") {
+            @Override
+            public ValueWrapper get(Object key) {
+                ValueWrapper value = super.get(key);
+                // Another node's invalidation arrives while L2 is being read
+                cache.evictLocal(List.of(key));
+                return value;
+            }
+        };
+        cache = cache(0);
+        remote.put("id-1", "stale");
+
+        assertEquals("stale", cache.get("id-1").get());
+        remote.evict("id-1");
+        assertNull(cache.get("id-1"));
+    }
+
+    private double loads(String type) {
+        return meterRegistry.get("cache.loads").tag("type", type).counter().count();
+    }
+
+    private double count(String tier, String result) {
+        return meterRegistry.get("cache.tier.gets").tag("tier", tier).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.orderservice.config;
+
+import com.example.orderservice.filter.AdmissionControlFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlConfigTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void admissionControlFilter_CoversOrderAndCustomerPaths() {
+        FilterRegistrationBean<AdmissionControlFilter> registration = registration(2000);
+
+        assertEquals(Set.of("/orders", "/orders/*", "/customers/*"), Set.copyOf(registration.getUrlPatterns()));
+    }
+
+    @Test
+    void admissionControlFilter_ConcurrencyLimitReached_ShedsCustomerSummary() throws Exception {
+        FilterRegistrationBean<AdmissionControlFilter> registration = registration(0);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        registration.getFilter().doFilter(
+                new MockHttpServletRequest("GET", "/customers/customer-1/summary"), response, chain);
+
+        assertEquals(503, response.getStatus());
+        assertNull(chain.getRequest());
+        assertEquals(1.0, meterRegistry.get("http.admission.shed").tag("reason", "concurrency").counter().count());
+    }
+
+    private FilterRegistrationBean<AdmissionControlFilter> registration(int maxConcurrent) {
+        AdmissionControlConfig config = new AdmissionControlConfig();
+        ReflectionTestUtils.setField(config, "maxConcurrent", maxConcurrent);
+        ReflectionTestUtils.setField(config, "latencyBudget", Duration.ofMillis(500));
+        return config.admissionControlFilter(meterRegistry);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.orderservice.config;
+
+import com.example.orderservice.cache.OrderJson;
+import com.example.orderservice.dto.OrderResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CacheTtlPropertiesTest {
+
+    private final CacheTtlProperties ttl = new CacheTtlProperties();
+
+    @BeforeEach
+    void setUp() {
+        ttl.getCaches().put("customerSummaries", Duration.ofMinutes(5));
+        ttl.getOrderStatus().put("DELIVERED", Duration.ofHours(1));
+    }
+
+    @Test
+    void ttl_TerminalOrderUsesStatusTtl() {
+        assertEquals(Duration.ofHours(1), ttl.ttl("orders", order("DELIVERED")));
+    }
+
+    @Test
+    void ttl_OrderJsonUsesStatusTtl() {
+        assertEquals(Duration.ofHours(1), ttl.ttl("orders", new OrderJson(new byte[0], "\"etag\"", "DELIVERED")));
+        assertEquals(Duration.ofSeconds(60), ttl.ttl("orders", new OrderJson(new byte[0], "\"etag\"", null)));
+    }
+
+    @Test
+    void ttl_FallsBackToCacheThenDefault() {
+        assertEquals(Duration.ofSeconds(60), ttl.ttl("orders", order("NEW")));
+        assertEquals(Duration.ofMinutes(5), ttl.ttl("customerSummaries", "summary"));
+        assertEquals(Duration.ofSeconds(60), ttl.ttl(null, null));
+    }
+
+    private static OrderResponseDto order(String status) {
+        OrderResponseDto order = new OrderResponseDto();
+        order.setStatus(status);
+        return order;
+    }
+}
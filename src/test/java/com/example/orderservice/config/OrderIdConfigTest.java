@@ -0,0 +1,33 @@
+package com.example.orderservice.config;
+
+import com.example.orderservice.id.CustomerScopedOrderIdGenerator;
+import com.example.orderservice.id.RandomUuidOrderIdGenerator;
+import com.example.orderservice.id.TimeOrderedOrderIdGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderIdConfigTest {
+
+    private final OrderIdConfig config = new OrderIdConfig();
+
+    @Test
+    void orderIdGenerator_KnownStrategies() {
+        ReflectionTestUtils.setField(config, "strategy", "time-ordered");
+        assertInstanceOf(TimeOrderedOrderIdGenerator.class, config.orderIdGenerator());
+
+        ReflectionTestUtils.setField(config, "strategy", "uuid");
+        assertInstanceOf(RandomUuidOrderIdGenerator.class, config.orderIdGenerator());
+
+        ReflectionTestUtils.setField(config, "customerScoped", true);
+        assertInstanceOf(CustomerScopedOrderIdGenerator.class, config.orderIdGenerator());
+    }
+
+    @Test
+    void orderIdGenerator_UnknownStrategy_Fails() {
+        ReflectionTestUtils.setField(config, "strategy", "UUID");
+
+        assertThrows(IllegalArgumentException.class, config::orderIdGenerator);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.orderservice.controller;
+
+import com.example.orderservice.cache.OrderJson;
+import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.service.IdempotencyService;
+import com.example.orderservice.service.OrderAnalyticsService;
+import com.example.orderservice.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = OrderController.class, properties = "app.cache.order-json.enabled=true")
+class OrderControllerOrderJsonTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private OrderService service;
+
+    @MockBean
+    private OrderAnalyticsService analyticsService;
+
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    private OrderJson order;
+
+    @BeforeEach
+    void setUp() {
+        OrderResponseDto dto = new OrderResponseDto();
+        dto.setId("test-id");
+        dto.setStatus("NEW");
+        order = OrderJson.of(dto, objectMapper.getFactory());
+        when(service.getJsonById("test-id")).thenReturn(order);
+    }
+
+    @Test
+    void getById_WritesCachedBodyWithEtag() throws Exception {
+        mockMvc.perform(get("/orders/test-id"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, order.getEtag()))
+                .andExpect(content().bytes(order.getBody()))
+                .andExpect(jsonPath("$.id").value("test-id"));
+        verify(service, never()).getById("test-id");
+    }
+
+    @Test
+    void getById_MatchingIfNoneMatch_Returns304() throws Exception {
+        mockMvc.perform(get("/orders/test-id").header(HttpHeaders.IF_NONE_MATCH, order.getEtag()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, order.getEtag()))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getById_StaleIfNoneMatch_ReturnsBody() throws Exception {
+        mockMvc.perform(get("/orders/test-id").header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(order.getBody()));
+    }
+}
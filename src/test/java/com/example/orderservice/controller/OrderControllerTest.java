@@ -1,9 +1,19 @@
 package com.example.orderservice.controller;
 
+import com.example.orderservice.dto.BatchResultDto;
 import com.example.orderservice.dto.CreateOrderDto;
 import com.example.orderservice.dto.ItemDto;
 import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.dto.OrderStatsDto;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.exception.IdempotencyConflictException;
+import com.example.orderservice.exception.OrderConflictException;
+import com.example.orderservice.repository.OrderFilter;
+import com.example.orderservice.service.IdempotencyService;
+import com.example.orderservice.service.OrderAnalyticsService;
+import com.example.orderservice.service.OrderMapper;
 import com.example.orderservice.service.OrderService;
+import com.example.orderservice.service.OrderStatsGrouping;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,10 +21,19 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -28,6 +47,12 @@ class OrderControllerTest {
     @MockBean
     private OrderService service;
 
+    @MockBean
+    private OrderAnalyticsService analyticsService;
+
+    @MockBean
+    private IdempotencyService idempotencyService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -53,6 +78,63 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.id").value("test-id"));
     }
 
+    @Test
+    void create_WithIdempotencyKey_ReplaysStoredResponse() throws Exception {
+        OrderResponseDto response = new OrderResponseDto();
+        response.setId("test-id");
+        when(idempotencyService.execute(eq("orders"), eq("key-1"), any(CreateOrderDto.class), eq(OrderResponseDto.class), any()))
+                .thenReturn(new IdempotencyService.Result<>(response, true));
+
+        mockMvc.perform(post("/orders")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\":\"123\",\"items\":[]}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value("test-id"));
+        verify(service, never()).create(any());
+    }
+
+    @Test
+    void create_WithIdempotencyKeyInProgress_Returns409() throws Exception {
+        when(idempotencyService.execute(eq("orders"), eq("key-1"), any(CreateOrderDto.class), eq(OrderResponseDto.class), any()))
+                .thenThrow(new IdempotencyConflictException("A request with this Idempotency-Key is in progress"));
+
+        mockMvc.perform(post("/orders")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\":\"123\",\"items\":[]}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void createBatch_AcceptsJsonArrayAndNdjson() throws Exception {
+        BatchResultDto result = new BatchResultDto();
+        result.success(0, "a", "CREATED");
+        when(service.createBatch(any())).thenAnswer(invocation -> {
+            Iterator<CreateOrderDto> orders = invocation.getArgument(0);
+            int count = 0;
+            while (orders.hasNext()) {
+                assertEquals("123", orders.next().getCustomerId());
+                count++;
+            }
+            assertEquals(2, count);
+            return result;
+        });
+
+        mockMvc.perform(post("/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"customerId\":\"123\",\"items\":[]},{\"customerId\":\"123\",\"items\":[]}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.results[0].outcome").value("CREATED"));
+
+        mockMvc.perform(post("/orders/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"customerId\":\"123\",\"items\":[]}\n{\"customerId\":\"123\",\"items\":[]}\n"))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void getById_Success() throws Exception {
         OrderResponseDto response = new OrderResponseDto();
@@ -64,17 +146,109 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.id").value("test-id"));
     }
 
+    @Test
+    void getById_WritesSameJsonAsJackson() throws Exception {
+        OrderResponseDto response = OrderMapper.toDto(order("test-id"));
+        when(service.getById("test-id")).thenReturn(response);
+
+        String body = mockMvc.perform(get("/orders/test-id"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(objectMapper.writeValueAsString(response), body);
+    }
+
     @Test
     void getFiltered_Success() throws Exception {
-        OrderResponseDto response = new OrderResponseDto();
-        response.setId("test-id");
-        when(service.getFiltered("NEW", "123")).thenReturn(List.of(response));
+        Order response = order("test-id");
+        when(service.findFiltered(OrderFilter.of("NEW", "123"), null, null)).thenReturn(new OrderService.OrderPage(List.of(response), "next"));
 
         mockMvc.perform(get("/orders").param("status", "NEW").param("customerId", "123"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next"))
                 .andExpect(jsonPath("$[0].id").value("test-id"));
     }
 
+    @Test
+    void getFiltered_ByCustomerAndDateRange_Success() throws Exception {
+        Order response = order("test-id");
+        OrderFilter filter = new OrderFilter(null, "123",
+                LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 2, 1, 0, 0));
+        when(service.findFiltered(filter, null, null)).thenReturn(new OrderService.OrderPage(List.of(response), null));
+
+        mockMvc.perform(get("/orders").param("customerId", "123")
+                        .param("from", "2024-01-01T00:00:00").param("to", "2024-02-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$[0].id").value("test-id"));
+    }
+
+    @Test
+    void getFiltered_WritesSameJsonAsJackson() throws Exception {
+        Order first = order("a");
+        Order second = order("b");
+        second.setItems(List.of());
+        second.setUpdatedAt(null);
+        when(service.findFiltered(new OrderFilter(), null, null)).thenReturn(new OrderService.OrderPage(List.of(first, second), null));
+
+        String body = mockMvc.perform(get("/orders"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(objectMapper.writeValueAsString(List.of(OrderMapper.toDto(first), OrderMapper.toDto(second))), body);
+    }
+
+    @Test
+    void getFiltered_OtherMediaTypes_NeverWriteTheEntity() throws Exception {
+        Order order = order("a");
+        order.setVersion(3L);
+        when(service.findFiltered(new OrderFilter(), null, null)).thenReturn(new OrderService.OrderPage(List.of(order), null));
+
+        mockMvc.perform(get("/orders").accept(MediaType.APPLICATION_XML))
+                .andExpect(status().isNotAcceptable());
+        mockMvc.perform(get("/orders").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isNotAcceptable());
+        String body = mockMvc.perform(get("/orders").accept(MediaType.parseMediaType("application/*+json")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(objectMapper.writeValueAsString(List.of(OrderMapper.toDto(order))), body);
+    }
+
+    @Test
+    void analytics_GroupsByDay() throws Exception {
+        OrderFilter filter = new OrderFilter("NEW", null, LocalDateTime.of(2024, 1, 1, 0, 0), null);
+        when(analyticsService.getStats(filter, OrderStatsGrouping.DAY))
+                .thenReturn(List.of(new OrderStatsDto("2024-01-01T00:00", 3, 42.5)));
+
+        mockMvc.perform(get("/orders/analytics").param("groupBy", "day").param("status", "NEW")
+                        .param("from", "2024-01-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].key").value("2024-01-01T00:00"))
+                .andExpect(jsonPath("$[0].count").value(3))
+                .andExpect(jsonPath("$[0].revenue").value(42.5));
+    }
+
+    @Test
+    void stream_WritesNdjson() throws Exception {
+        Order first = order("a");
+        Order second = order("b");
+        when(service.streamFiltered(OrderFilter.of("NEW", null))).thenReturn(Stream.of(first, second));
+
+        MvcResult result = mockMvc.perform(get("/orders/stream").param("status", "NEW"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("a", objectMapper.readValue(lines[0], OrderResponseDto.class).getId());
+        assertEquals("b", objectMapper.readValue(lines[1], OrderResponseDto.class).getId());
+    }
+
     @Test
     void updateStatus_Success() throws Exception {
         OrderResponseDto response = new OrderResponseDto();
@@ -88,10 +262,36 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.id").value("test-id"));
     }
 
+    @Test
+    void updateStatus_Conflict_Returns409() throws Exception {
+        when(service.updateStatus(eq("test-id"), any()))
+                .thenThrow(new OrderConflictException("Invalid transition DELIVERED -> NEW"));
+
+        mockMvc.perform(patch("/orders/test-id/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"NEW\",\"expectedVersion\":2}"))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void health_Success() throws Exception {
         mockMvc.perform(get("/orders/health"))
                 .andExpect(status().isOk())
                 .andExpect(content().string("OK - Mongo, Redis, Kafka connected"));
     }
-}
\ No newline at end of file
+
+    private static Order order(String id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomerId("123");
+        Order.Item item = new Order.Item();
+        item.setSku("SKU1");
+        item.setQuantity(2);
+        item.setPrice(10.5);
+        order.setItems(List.of(item));
+        order.setCreatedAt(LocalDateTime.of(2025, 10, 19, 22, 10, 25, 120_000_000));
+        order.setUpdatedAt(LocalDateTime.of(2025, 10, 19, 22, 11));
+        order.setVersion(3L);
+        return order;
+    }
+}
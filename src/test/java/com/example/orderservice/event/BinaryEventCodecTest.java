@@ -0,0 +1,90 @@
+package com.example.orderservice.event;
+
+import com.example.orderservice.dto.EventDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryEventCodecTest {
+
+    private final BinaryEventCodec binary = new BinaryEventCodec(ZoneOffset.UTC);
+    private final JsonEventCodec json = new JsonEventCodec(new ObjectMapper().registerModule(new JavaTimeModule()));
+    private EventDto event;
+
+    @BeforeEach
+    void setUp() {
+        event = new EventDto();
+        event.setOrderId("abdb7549-380f-49a1-90e0-cbe15e580a90");
+        event.setOldStatus("NEW");
+        event.setNewStatus("DELIVERED");
+        event.setTimestamp(LocalDateTime.of(2025, 10, 19, 22, 10, 25, 123_000_000));
+    }
+
+    @Test
+    void roundTrip_KeepsMillisecondPrecision() {
+        byte[] bytes = binary.encode(event);
+
+        assertEquals(BinaryEventCodec.SCHEMA_VERSION, bytes[0]);
+        assertEquals(event, binary.decode(bytes));
+        assertTrue(bytes.length < json.encode(event).length / 2);
+    }
+
+    @Test
+    void roundTrip_UnknownAndMissingValues() {
+        event.setOldStatus(null);
+        event.setNewStatus("RETURNED");
+        event.setTimestamp(null);
+
+        assertEquals(event, binary.decode(binary.encode(event)));
+    }
+
+    @Test
+    void decode_UnknownSchemaVersion_Fails() {
+        byte[] bytes = binary.encode(event);
+        bytes[0] = 9;
+
+        assertThrows(SerializationException.class, () -> binary.decode(bytes));
+    }
+
+    @Test
+    void decode_UnknownStatusCode_Fails() {
+        byte[] bytes = binary.encode(event);
+        // Version byte, then the order id (2-byte length + UTF-8), then the old status code
+        bytes[3 + event.getOrderId().length()] = (byte) BinaryEventCodec.STATUS_CODES.size();
+
+        assertThrows(SerializationException.class, () -> binary.decode(bytes));
+    }
+
+    @Test
+    void deserializer_ConfiguredByKafka() {
+        OrderEventDeserializer deserializer = new OrderEventDeserializer();
+        deserializer.configure(Map.of(OrderEventDeserializer.ZONE_CONFIG, "UTC"), false);
+        RecordHeaders binaryHeaders = new RecordHeaders();
+        binaryHeaders.add(EventCodec.CONTENT_TYPE_HEADER, BinaryEventCodec.CONTENT_TYPE.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(event, deserializer.deserialize("orders.events", binaryHeaders, binary.encode(event)));
+        assertEquals(event, deserializer.deserialize("orders.events", new RecordHeaders(), json.encode(event)));
+    }
+
+    @Test
+    void deserializer_PicksCodecFromContentTypeHeader() {
+        event.setTimestamp(LocalDateTime.of(2025, 10, 19, 22, 10, 25));
+        OrderEventDeserializer deserializer = new OrderEventDeserializer(json, binary);
+        RecordHeaders binaryHeaders = new RecordHeaders();
+        binaryHeaders.add(EventCodec.CONTENT_TYPE_HEADER, BinaryEventCodec.CONTENT_TYPE.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(event, deserializer.deserialize("orders.events", binaryHeaders, binary.encode(event)));
+        // Records from producers that predate the header are JSON
+        assertEquals(event, deserializer.deserialize("orders.events", new RecordHeaders(), json.encode(event)));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.orderservice.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void doFilter_UnderBudget_PassesThrough() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(10, Duration.ofMillis(100), meterRegistry, () -> 0.0);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/orders/1"), response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_LatencyOverBudget_ShedsWithRetryAfter() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(10, Duration.ofMillis(100), meterRegistry, () -> 0.0);
+        filter.recordLatency(Duration.ofSeconds(2).toNanos());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/orders/1"), response, chain);
+
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        assertNull(chain.getRequest());
+        assertEquals(1.0, meterRegistry.get("http.admission.shed").tag("reason", "latency").counter().count());
+    }
+
+    @Test
+    void doFilter_LatencyOverBudget_StillAdmitsProbes() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(10, Duration.ofMillis(100), meterRegistry, () -> 0.95);
+        filter.recordLatency(Duration.ofSeconds(2).toNanos());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/orders/1"), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+        assertTrue(filter.latencyEwma() < Duration.ofSeconds(2).toNanos());
+    }
+
+    @Test
+    void doFilter_BatchAndStreamRequests_LeftOutOfLatencyEstimate() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(10, Duration.ofMillis(100), meterRegistry, () -> 0.0);
+        FilterChain slow = (request, response) -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/orders/batch"), new MockHttpServletResponse(), slow);
+        filter.doFilter(new MockHttpServletRequest("PATCH", "/orders/status"), new MockHttpServletResponse(), slow);
+        filter.doFilter(new MockHttpServletRequest("GET", "/orders/stream"), new MockHttpServletResponse(), slow);
+        assertEquals(0, filter.latencyEwma());
+
+        filter.doFilter(new MockHttpServletRequest("PATCH", "/orders/1/status"), new MockHttpServletResponse(), slow);
+        assertTrue(filter.latencyEwma() >= Duration.ofMillis(20).toNanos());
+    }
+
+    @Test
+    void doFilter_ConcurrencyLimitReached_Sheds() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(1, Duration.ofSeconds(10), meterRegistry, () -> 0.0);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain blocking = (request, response) -> {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        Thread first = new Thread(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/orders/1"), new MockHttpServletResponse(), blocking);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        first.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/orders/2"), rejected, new MockFilterChain());
+        release.countDown();
+        first.join();
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals(1.0, meterRegistry.get("http.admission.shed").tag("reason", "concurrency").counter().count());
+    }
+
+    @Test
+    void doFilter_HealthEndpoint_NeverShed() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(0, Duration.ofMillis(100), meterRegistry, () -> 0.0);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/orders/health"), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+    }
+}
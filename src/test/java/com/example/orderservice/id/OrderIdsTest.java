@@ -0,0 +1,73 @@
+package com.example.orderservice.id;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderIdsTest {
+
+    private final CustomerScopedOrderIdGenerator generator = new CustomerScopedOrderIdGenerator(new TimeOrderedOrderIdGenerator());
+
+    @Test
+    void newId_CarriesCustomer() {
+        String id = generator.newId("acme~eu");
+
+        assertEquals(Optional.of("acme~eu"), OrderIds.customerId(id));
+        assertNotEquals(id, generator.newId("acme~eu"));
+    }
+
+    @Test
+    void newId_FreeFormCustomerIsEncoded() {
+        String customerId = "acme/eu?q=1#ñ.x";
+        String id = generator.newId(customerId);
+
+        // One path segment, without the customer id in plain text
+        assertTrue(id.matches("[A-Za-z0-9_\\-]+\\.[0-9A-Z]{26}"), id);
+        assertEquals("/orders/" + id, URI.create("/orders/" + id).getPath());
+        assertEquals(Optional.of(customerId), OrderIds.customerId(id));
+    }
+
+    @Test
+    void newId_WithoutCustomerIsUnscoped() {
+        assertEquals(Optional.empty(), OrderIds.customerId(generator.newId(null)));
+    }
+
+    @Test
+    void customerId_UnencodedPrefixDoesNotRoute() {
+        assertEquals(Optional.empty(), OrderIds.customerId("acme~eu~01HZX3JQ8R9N4T7V2W5Y6Z0ABC"));
+        assertEquals(Optional.empty(), OrderIds.customerId("c.1~x"));
+        assertEquals(new Document("_id", "acme~x"), OrderIds.where("acme~x").getCriteriaObject());
+    }
+
+    @Test
+    void customerId_LegacyUuidHasNone() {
+        assertEquals(Optional.empty(), OrderIds.customerId(UUID.randomUUID().toString()));
+        assertEquals(Optional.empty(), OrderIds.customerId("~abc"));
+        assertEquals(Optional.empty(), OrderIds.customerId(".abc"));
+        // Not a prefix this class wrote
+        assertEquals(Optional.empty(), OrderIds.customerId("a.abc"));
+        assertEquals(Optional.empty(), OrderIds.customerId(null));
+    }
+
+    @Test
+    void where_AddsShardKeyWhenKnown() {
+        String id = OrderIds.scoped("c1", "x");
+        assertEquals(new Document("_id", id).append("customerId", "c1"), OrderIds.where(id).getCriteriaObject());
+        assertEquals(new Document("_id", "legacy"), OrderIds.where("legacy").getCriteriaObject());
+    }
+
+    @Test
+    void whereIn_TargetsOnlyWhenEveryIdIsScoped() {
+        Document scoped = OrderIds.whereIn(List.of(OrderIds.scoped("c1", "x"), OrderIds.scoped("c2", "y"), OrderIds.scoped("c1", "z"))).getCriteriaObject();
+        assertEquals(List.of("c1", "c2"), List.copyOf(scoped.get("customerId", Document.class).getList("$in", Object.class)));
+
+        Document mixed = OrderIds.whereIn(List.of(OrderIds.scoped("c1", "x"), "legacy")).getCriteriaObject();
+        assertFalse(mixed.containsKey("customerId"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.orderservice.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedOrderIdGeneratorTest {
+    private static final Instant NOW = Instant.parse("2025-10-19T22:10:25.123456Z");
+
+    @Test
+    void newId_IsCompactBase32() {
+        String id = new TimeOrderedOrderIdGenerator().newId("customer-1");
+
+        assertEquals(TimeOrderedOrderIdGenerator.LENGTH, id.length());
+        assertTrue(id.matches("[0-9A-HJKMNP-TV-Z]{26}"), id);
+    }
+
+    @Test
+    void newId_SortsByTime() {
+        List<String> ids = new ArrayList<>();
+        for (Instant instant : List.of(NOW, NOW.plusNanos(1_000), NOW.plusMillis(1), NOW.plusSeconds(3600))) {
+            ids.add(new TimeOrderedOrderIdGenerator(Clock.fixed(instant, ZoneOffset.UTC)).newId(null));
+        }
+
+        assertEquals(ids.stream().sorted().toList(), ids);
+    }
+
+    @Test
+    void newId_SameTickDiffersInRandomBitsOnly() {
+        TimeOrderedOrderIdGenerator generator = new TimeOrderedOrderIdGenerator(Clock.fixed(NOW, ZoneOffset.UTC));
+
+        String first = generator.newId(null);
+        String second = generator.newId(null);
+
+        assertNotEquals(first, second);
+        // 48 + 12 time bits fill the first 12 digits
+        assertEquals(first.substring(0, 12), second.substring(0, 12));
+    }
+
+    @Test
+    void encode_PreservesBitOrder() {
+        assertEquals("00000000000000000000000000", TimeOrderedOrderIdGenerator.encode(0, 0));
+        assertEquals("0000000000000000000000000Z", TimeOrderedOrderIdGenerator.encode(0, 31));
+        assertEquals("00000000000008000000000000", TimeOrderedOrderIdGenerator.encode(0, Long.MIN_VALUE));
+        assertEquals("0000000000000R000000000000", TimeOrderedOrderIdGenerator.encode(1, Long.MIN_VALUE));
+        assertEquals("7ZZZZZZZZZZZZZZZZZZZZZZZZZ", TimeOrderedOrderIdGenerator.encode(-1, -1));
+    }
+
+    @Test
+    void newId_UniqueAcrossThreads() throws Exception {
+        TimeOrderedOrderIdGenerator generator = new TimeOrderedOrderIdGenerator();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 25_000; i++) {
+                        ids.add(generator.newId(null));
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        }
+
+        assertEquals(200_000, ids.size());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.orderservice.metrics;
+
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private OrderMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        metrics = new OrderMetrics(observationRegistry, meterRegistry);
+    }
+
+    @Test
+    void mongo_RecordsTimerPerOperation() {
+        String result = metrics.mongo("getById", () -> "order");
+
+        assertEquals("order", result);
+        assertEquals(1, meterRegistry.get("order.mongo").tag("operation", "getById").timer().count());
+    }
+
+    @Test
+    void mongo_FailureIsTaggedAndRethrown() {
+        assertThrows(IllegalStateException.class, () -> metrics.mongo("create", () -> {
+            throw new IllegalStateException("down");
+        }));
+
+        assertEquals(1, meterRegistry.get("order.mongo")
+                .tag("operation", "create")
+                .tag("error", "IllegalStateException")
+                .timer().count());
+    }
+
+    @Test
+    void recordPublishAndLag() {
+        metrics.recordPublish(System.nanoTime(), true);
+        metrics.recordPublish(System.nanoTime(), false);
+        metrics.recordOutboxLag(LocalDateTime.now().minusSeconds(2));
+        metrics.recordOutboxLag(null);
+
+        assertEquals(1, meterRegistry.get("order.outbox.publish").tag("result", "acked").timer().count());
+        assertEquals(1, meterRegistry.get("order.outbox.publish").tag("result", "failed").timer().count());
+        assertEquals(1, meterRegistry.get("order.outbox.lag").timer().count());
+        assertTrue(meterRegistry.get("order.outbox.lag").timer().totalTime(TimeUnit.SECONDS) >= 2);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.orderservice.repository;
+
+import com.example.orderservice.config.OrderIdConfig;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.id.OrderIdAssigner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Walks GET /orders pages through encoded cursors against embedded Mongo, including orders without createdAt.
+ */
+@DataMongoTest(properties = "de.flapdoodle.mongodb.embedded.version=7.0.2")
+@Import({OrderArchive.class, OrderIdConfig.class, OrderIdAssigner.class})
+class OrderCursorTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(Order.class);
+    }
+
+    @Test
+    void encode_WithoutCreatedAt_RoundTrips() {
+        OrderCursor cursor = new OrderCursor(null, "a|b");
+
+        assertEquals(cursor, OrderCursor.decode(cursor.encode()));
+        assertEquals(new OrderCursor(START, "x"), OrderCursor.decode(new OrderCursor(START, "x").encode()));
+    }
+
+    @Test
+    void findPage_PageBoundaryOnOrderWithoutCreatedAt() {
+        List<Order> orders = List.of(order("d2", START.plusHours(1)), order("n3", null), order("d1", START),
+                order("n1", null), order("d3", START.plusHours(1)), order("n2", null));
+        mongoTemplate.insertAll(orders);
+
+        // Two per page: the first page ends on n2, the second on d1
+        List<String> ids = new ArrayList<>();
+        OrderCursor after = null;
+        List<Order> page;
+        do {
+            page = repository.findPage(new OrderFilter(), after, 2);
+            page.forEach(order -> ids.add(order.getId()));
+            after = page.isEmpty() ? null : OrderCursor.decode(OrderCursor.after(page.get(page.size() - 1)).encode());
+        } while (page.size() == 2);
+
+        assertEquals(List.of("n1", "n2", "n3", "d1", "d2", "d3"), ids);
+    }
+
+    private static Order order(String id, LocalDateTime createdAt) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomerId("customer-1");
+        order.setStatus("NEW");
+        order.setCreatedAt(createdAt);
+        order.setItems(List.of());
+        return order;
+    }
+}
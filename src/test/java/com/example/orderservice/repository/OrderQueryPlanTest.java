@@ -0,0 +1,107 @@
+package com.example.orderservice.repository;
+
+import com.example.orderservice.config.MongoIndexConfig;
+import com.example.orderservice.config.OrderIdConfig;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.id.OrderIdAssigner;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fails the build when a filter shape exposed by GET /orders stops being served by an index.
+ */
+@DataMongoTest(properties = "de.flapdoodle.mongodb.embedded.version=7.0.2")
+@Import({MongoIndexConfig.class, OrderArchive.class, OrderIdConfig.class, OrderIdAssigner.class})
+class OrderQueryPlanTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final List<String> STATUSES = List.of("NEW", "IN_PROGRESS", "DELIVERED", "CANCELLED");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void seed() {
+        if (mongoTemplate.count(new Query(), Order.class) > 0) {
+            return;
+        }
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Order order = new Order();
+            order.setCustomerId("customer-" + (i % 50));
+            order.setStatus(STATUSES.get(i % STATUSES.size()));
+            order.setCreatedAt(START.plusHours(i));
+            order.setItems(List.of());
+            orders.add(order);
+        }
+        mongoTemplate.insertAll(orders);
+    }
+
+    static Stream<OrderFilter> filters() {
+        return Stream.of(
+                new OrderFilter(),
+                OrderFilter.of("NEW", null),
+                OrderFilter.of(null, "customer-7"),
+                OrderFilter.of("NEW", "customer-7"),
+                new OrderFilter(null, null, START.plusDays(3), START.plusDays(5)),
+                new OrderFilter("DELIVERED", null, START.plusDays(3), null),
+                new OrderFilter(null, "customer-7", null, START.plusDays(10)),
+                new OrderFilter("NEW", "customer-7", START.plusDays(1), START.plusDays(20)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("filters")
+    void pageQuery_UsesIndex(OrderFilter filter) {
+        assertIndexScan(OrderQueries.pageQuery(filter, null, 100));
+        assertIndexScan(OrderQueries.pageQuery(filter, new OrderCursor(START.plusDays(2), "x"), 100));
+        assertIndexScan(OrderQueries.pageQuery(filter, new OrderCursor(null, "x"), 100));
+    }
+
+    @ParameterizedTest
+    @MethodSource("filters")
+    void streamQuery_UsesIndex(OrderFilter filter) {
+        assertIndexScan(OrderQueries.streamQuery(filter));
+    }
+
+    private void assertIndexScan(Query query) {
+        Document explain = mongoTemplate.getCollection("orders")
+                .find(query.getQueryObject())
+                .sort(query.getSortObject())
+                .limit(query.getLimit())
+                .explain();
+        Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        Set<String> stages = new HashSet<>();
+        collectStages(winningPlan, stages);
+
+        assertFalse(stages.contains("COLLSCAN"), () -> "Collection scan for " + query + ": " + winningPlan.toJson());
+        assertTrue(stages.contains("IXSCAN"), () -> "No index scan for " + query + ": " + winningPlan.toJson());
+    }
+
+    private static void collectStages(Object node, Set<String> stages) {
+        if (node instanceof Document document) {
+            Object stage = document.get("stage");
+            if (stage instanceof String name) {
+                stages.add(name);
+            }
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages));
+        }
+    }
+}
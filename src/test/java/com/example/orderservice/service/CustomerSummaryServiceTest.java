@@ -0,0 +1,173 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.cache.CacheBatchEvictor;
+import com.example.orderservice.config.OrderIdConfig;
+import com.example.orderservice.dto.CustomerSummaryDto;
+import com.example.orderservice.entity.CustomerSummary;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.id.OrderIdAssigner;
+import com.example.orderservice.repository.OrderArchive;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks against embedded Mongo that incrementally maintained summaries equal the ones rebuilt from the orders.
+ */
+@DataMongoTest(properties = "de.flapdoodle.mongodb.embedded.version=7.0.2")
+@Import({OrderArchive.class, OrderIdConfig.class, OrderIdAssigner.class})
+class CustomerSummaryServiceTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderArchive archive;
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+    private final CacheBatchEvictor cacheEvictor = mock(CacheBatchEvictor.class);
+    private CustomerSummaryService service;
+    private int sequence;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(Order.class);
+        mongoTemplate.dropCollection(CustomerSummary.class);
+        service = new CustomerSummaryService(mongoTemplate, cacheManager, cacheEvictor, archive);
+        ReflectionTestUtils.setField(service, "recentOrders", 3);
+        sequence = 0;
+    }
+
+    @Test
+    void recordCreated_FirstOrderBuildsSummaryAndEvictsIt() {
+        Order order = insert("customer-1", 2, 10.0);
+
+        service.recordCreated(order);
+
+        CustomerSummary summary = mongoTemplate.findById("customer-1", CustomerSummary.class);
+        assertEquals(1, summary.getOrderCount());
+        assertEquals(20.0, summary.getLifetimeValue());
+        assertEquals(1L, summary.getStatusCounts().get("NEW"));
+        assertEquals(order.getId(), summary.getRecentOrders().get(0).getOrderId());
+        verify(cacheEvictor).evictAll(CustomerSummaryService.CACHE, List.of("customer-1"));
+    }
+
+    @Test
+    void incrementalUpdates_MatchRebuild() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Order order = insert("customer-1", i + 1, 2.5);
+            service.recordCreated(order);
+            orders.add(order);
+        }
+        List<Order> batch = List.of(insert("customer-1", 1, 4.0), insert("customer-2", 3, 1.5));
+        service.recordAllCreated(batch);
+
+        transition(orders.get(4), "CANCELLED");
+        transition(orders.get(0), "IN_PROGRESS");
+        service.recordAllTransitions(List.of(copy(orders.get(0))), "DELIVERED");
+        setStatus(orders.get(0), "DELIVERED");
+
+        CustomerSummary incremental = mongoTemplate.findById("customer-1", CustomerSummary.class);
+        service.rebuildAll();
+        CustomerSummary rebuilt = mongoTemplate.findById("customer-1", CustomerSummary.class);
+
+        assertEquals(rebuilt.getOrderCount(), incremental.getOrderCount());
+        assertEquals(rebuilt.getLifetimeValue(), incremental.getLifetimeValue());
+        assertEquals(withoutZeros(rebuilt), withoutZeros(incremental));
+        assertEquals(3, incremental.getRecentOrders().size());
+        assertEquals(rebuilt.getRecentOrders().stream().map(CustomerSummary.RecentOrder::getOrderId).toList(),
+                incremental.getRecentOrders().stream().map(CustomerSummary.RecentOrder::getOrderId).toList());
+        assertEquals("CANCELLED", incremental.getRecentOrders().get(1).getStatus());
+        assertEquals(1, mongoTemplate.findById("customer-2", CustomerSummary.class).getOrderCount());
+    }
+
+    @Test
+    void rebuildAll_KeepsSummaryUpdatedAfterItStarted() {
+        insert("customer-4", 1, 5.0);
+        insert("customer-5", 1, 5.0);
+        service.rebuildAll();
+        // An increment the rebuild may not have seen, as written by a concurrent order write
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is("customer-4")),
+                new Update().inc("orderCount", 1).set("updatedAt", LocalDateTime.now().plusHours(1)), CustomerSummary.class);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is("customer-5")),
+                new Update().inc("orderCount", 1).set("updatedAt", START), CustomerSummary.class);
+
+        service.rebuildAll();
+
+        assertEquals(2, mongoTemplate.findById("customer-4", CustomerSummary.class).getOrderCount());
+        assertEquals(1, mongoTemplate.findById("customer-5", CustomerSummary.class).getOrderCount());
+        assertEquals(0, mongoTemplate.count(Query.query(Criteria.where(CustomerSummaryService.REBUILD_SKIPPED).exists(true)),
+                CustomerSummary.class));
+    }
+
+    @Test
+    void getSummary_RebuildsMissingSummary() {
+        insert("customer-3", 1, 8.0);
+        insert("customer-3", 1, 2.0);
+
+        CustomerSummaryDto summary = service.getSummary("customer-3");
+
+        assertEquals(2, summary.getOrderCount());
+        assertEquals(10.0, summary.getLifetimeValue());
+        assertThrows(RuntimeException.class, () -> service.getSummary("unknown"));
+    }
+
+    private Order insert(String customerId, int quantity, double price) {
+        Order order = new Order();
+        order.setCustomerId(customerId);
+        order.setCreatedAt(START.plusMinutes(sequence++));
+        Order.Item item = new Order.Item();
+        item.setSku("SKU");
+        item.setQuantity(quantity);
+        item.setPrice(price);
+        order.setItems(List.of(item));
+        return mongoTemplate.insert(order);
+    }
+
+    private void transition(Order order, String newStatus) {
+        service.recordTransition(copy(order), newStatus);
+        setStatus(order, newStatus);
+    }
+
+    private void setStatus(Order order, String status) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(order.getId())),
+                new Update().set("status", status), Order.class);
+        order.setStatus(status);
+    }
+
+    private static Order copy(Order order) {
+        Order copy = new Order();
+        copy.setId(order.getId());
+        copy.setCustomerId(order.getCustomerId());
+        copy.setStatus(order.getStatus());
+        copy.setItems(order.getItems());
+        copy.setCreatedAt(order.getCreatedAt());
+        return copy;
+    }
+
+    private static Map<String, Long> withoutZeros(CustomerSummary summary) {
+        Map<String, Long> counts = new HashMap<>(summary.getStatusCounts());
+        counts.values().removeIf(count -> count == 0);
+        return counts;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.dto.CreateOrderDto;
+import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.exception.IdempotencyConflictException;
+import com.example.orderservice.exception.IdempotencyKeyReusedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+    private static final String KEY = "idempotency:orders:key-1";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private IdempotencyService service;
+    private CreateOrderDto request;
+    private OrderResponseDto response;
+    private final AtomicInteger creates = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotencyService(redisTemplate, objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(service, "lockTtl", Duration.ofSeconds(30));
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        request = new CreateOrderDto();
+        request.setCustomerId("123");
+        response = new OrderResponseDto();
+        response.setId("order-1");
+        response.setStatus("NEW");
+        response.setCreatedAt(LocalDateTime.of(2025, 10, 19, 22, 10));
+    }
+
+    @Test
+    void execute_FirstRequest_RunsAndStoresResponse() {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), eq(Duration.ofSeconds(30)))).thenReturn(true);
+
+        IdempotencyService.Result<OrderResponseDto> result = execute(request);
+
+        assertFalse(result.replayed());
+        assertSame(response, result.response());
+        assertEquals(1, creates.get());
+        ArgumentCaptor<String> stored = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).execute(eq(IdempotencyService.STORE), eq(List.of(KEY)), anyString(), stored.capture(), eq("86400000"));
+        assertTrue(stored.getValue().contains("order-1"));
+    }
+
+    @Test
+    void execute_Retry_ReplaysWithoutRunning() {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class))).thenReturn(true);
+        execute(request);
+        ArgumentCaptor<String> stored = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).execute(eq(IdempotencyService.STORE), eq(List.of(KEY)), anyString(), stored.capture(), anyString());
+        when(valueOperations.get(KEY)).thenReturn(stored.getValue());
+
+        IdempotencyService.Result<OrderResponseDto> replay = execute(request);
+
+        assertTrue(replay.replayed());
+        assertEquals(response, replay.response());
+        assertEquals(1, creates.get());
+    }
+
+    @Test
+    void execute_InFlight_Conflicts() {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class))).thenReturn(true);
+        ArgumentCaptor<String> pending = ArgumentCaptor.forClass(String.class);
+        service.execute("orders", "key-1", request, OrderResponseDto.class, () -> {
+            verify(valueOperations).setIfAbsent(eq(KEY), pending.capture(), any(Duration.class));
+            when(valueOperations.get(KEY)).thenReturn(pending.getValue());
+            // A retry arriving while the first request is still running
+            assertThrows(IdempotencyConflictException.class, () -> execute(request));
+            return response;
+        });
+
+        assertEquals(0, creates.get());
+    }
+
+    @Test
+    void execute_SameKeyDifferentBody_Rejected() {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class))).thenReturn(true);
+        execute(request);
+        ArgumentCaptor<String> stored = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).execute(eq(IdempotencyService.STORE), eq(List.of(KEY)), anyString(), stored.capture(), anyString());
+        when(valueOperations.get(KEY)).thenReturn(stored.getValue());
+
+        CreateOrderDto other = new CreateOrderDto();
+        other.setCustomerId("456");
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> execute(other));
+        assertEquals(1, creates.get());
+    }
+
+    @Test
+    void execute_Failure_ReleasesOwnClaimOnly() throws Exception {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class))).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> service.execute("orders", "key-1", request,
+                OrderResponseDto.class, () -> {
+                    throw new IllegalArgumentException("Invalid order");
+                }));
+
+        // Compare-and-delete on the token of the pending record, so a retry's claim is never removed
+        ArgumentCaptor<String> pending = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).setIfAbsent(eq(KEY), pending.capture(), any(Duration.class));
+        String owner = objectMapper.readTree(pending.getValue()).get("owner").asText();
+        assertFalse(owner.isEmpty());
+        verify(redisTemplate).execute(IdempotencyService.RELEASE, List.of(KEY), owner);
+        verify(redisTemplate, never()).delete(anyString());
+        verify(redisTemplate, never()).execute(eq(IdempotencyService.STORE), anyList(), any(), any(), any());
+    }
+
+    @Test
+    void execute_Success_StoresOnlyOverOwnClaim() throws Exception {
+        when(valueOperations.setIfAbsent(eq(KEY), anyString(), any(Duration.class))).thenReturn(true);
+
+        execute(request);
+
+        ArgumentCaptor<String> pending = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).setIfAbsent(eq(KEY), pending.capture(), any(Duration.class));
+        String owner = objectMapper.readTree(pending.getValue()).get("owner").asText();
+        verify(redisTemplate).execute(eq(IdempotencyService.STORE), eq(List.of(KEY)), eq(owner), anyString(), anyString());
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    private IdempotencyService.Result<OrderResponseDto> execute(CreateOrderDto dto) {
+        return service.execute("orders", "key-1", dto, OrderResponseDto.class, () -> {
+            creates.incrementAndGet();
+            return response;
+        });
+    }
+}
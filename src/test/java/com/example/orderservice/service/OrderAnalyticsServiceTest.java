@@ -0,0 +1,272 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.config.OrderIdConfig;
+import com.example.orderservice.dto.OrderStatsDto;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.exception.OrderConflictException;
+import com.example.orderservice.id.OrderIdAssigner;
+import com.example.orderservice.metrics.OrderMetrics;
+import com.example.orderservice.repository.OrderArchive;
+import com.example.orderservice.repository.OrderFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the pipelines against embedded Mongo and checks that the incrementally maintained rollup
+ * and a rebuilt one answer exactly like the aggregation over the orders collection.
+ */
+@DataMongoTest(properties = "de.flapdoodle.mongodb.embedded.version=7.0.2")
+@Import({OrderArchive.class, OrderIdConfig.class, OrderIdAssigner.class})
+class OrderAnalyticsServiceTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final List<String> STATUSES = List.of("NEW", "IN_PROGRESS");
+    private static final int ORDERS = 200;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderArchive archive;
+
+    private OrderStatsRollup rollup;
+    private OrderAnalyticsService analytics;
+    private double totalRevenue;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(Order.class);
+        mongoTemplate.dropCollection(OrderStatsRollup.COLLECTION);
+        mongoTemplate.dropCollection(OrderStatsRollup.BUILD_COLLECTION);
+        rollup = new OrderStatsRollup(mongoTemplate, archive);
+        ReflectionTestUtils.setField(rollup, "enabled", true);
+        analytics = new OrderAnalyticsService(mongoTemplate, rollup,
+                new OrderMetrics(ObservationRegistry.NOOP, new SimpleMeterRegistry()), archive);
+        // Built while there are no orders, so the buckets below come from the increments alone
+        rollup.rebuild();
+
+        List<Order> orders = new ArrayList<>();
+        totalRevenue = 0;
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setCustomerId("customer-" + (i % 7));
+            order.setStatus(STATUSES.get(i % STATUSES.size()));
+            order.setCreatedAt(START.plusMinutes(37L * i));
+            Order.Item item = new Order.Item();
+            item.setSku("SKU" + i);
+            item.setQuantity(i % 3 + 1);
+            // Binary fractions, so sums are exact in any order
+            item.setPrice(0.5 * (i % 7 + 1));
+            order.setItems(List.of(item));
+            totalRevenue += item.getPrice() * item.getQuantity();
+            orders.add(order);
+        }
+        mongoTemplate.insertAll(orders);
+        rollup.recordCreated(orders);
+
+        // Cancel every third order, recording the transition from its previous state
+        List<Order> cancelled = orders.stream().filter(order -> orders.indexOf(order) % 3 == 0).toList();
+        rollup.recordTransitions(cancelled, "CANCELLED");
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(cancelled.stream().map(Order::getId).toList())),
+                new Update().set("status", "CANCELLED"), Order.class);
+    }
+
+    static Stream<OrderFilter> rollupFilters() {
+        return Stream.of(
+                new OrderFilter(),
+                OrderFilter.of("CANCELLED", null),
+                new OrderFilter(null, null, START.plusDays(1), START.plusDays(3)),
+                new OrderFilter("NEW", null, START.plusDays(2), null));
+    }
+
+    @ParameterizedTest
+    @MethodSource("rollupFilters")
+    void rollup_MatchesPipeline(OrderFilter filter) {
+        for (OrderStatsGrouping groupBy : List.of(OrderStatsGrouping.STATUS, OrderStatsGrouping.DAY)) {
+            assertTrue(rollup.canServe(filter, groupBy));
+            assertEquals(analytics.aggregate(filter, groupBy), rollup.query(filter, groupBy));
+        }
+    }
+
+    @Test
+    void rebuild_MatchesPipeline() {
+        rollup.rebuild();
+
+        for (OrderStatsGrouping groupBy : List.of(OrderStatsGrouping.STATUS, OrderStatsGrouping.DAY)) {
+            assertEquals(analytics.aggregate(new OrderFilter(), groupBy), rollup.query(new OrderFilter(), groupBy));
+        }
+    }
+
+    @Test
+    void rebuild_KeepsBucketIncrementedAfterItStarted() {
+        Document day = new Document("day", Date.from(START.atZone(ZoneId.systemDefault()).toInstant()))
+                .append("status", "NEW");
+        // Stands in for an increment landing while the rebuild runs, which the recomputation may have missed
+        mongoTemplate.getCollection(OrderStatsRollup.COLLECTION).updateOne(new Document("_id", day),
+                new Document("$set", new Document("count", 999L)
+                        .append("updatedAt", new Date(System.currentTimeMillis() + 60_000))));
+
+        rollup.rebuild();
+
+        Document bucket = mongoTemplate.getCollection(OrderStatsRollup.COLLECTION).find(new Document("_id", day)).first();
+        assertEquals(999L, bucket.get("count", Number.class).longValue());
+        assertNull(bucket.get(OrderStatsRollup.REBUILD_SKIPPED));
+        assertFalse(mongoTemplate.collectionExists(OrderStatsRollup.STAGING_COLLECTION));
+    }
+
+    @Test
+    void rebuild_ZeroesBucketWithoutOrders() {
+        Document day = new Document("day", Date.from(START.minusDays(30).atZone(ZoneId.systemDefault()).toInstant()))
+                .append("status", "NEW");
+        mongoTemplate.getCollection(OrderStatsRollup.COLLECTION).insertOne(new Document("_id", day)
+                .append("count", 5L).append("revenue", 10.0).append("updatedAt", new Date(0)));
+
+        rollup.rebuild();
+
+        Document bucket = mongoTemplate.getCollection(OrderStatsRollup.COLLECTION).find(new Document("_id", day)).first();
+        assertEquals(0, bucket.get("count", Number.class).longValue());
+        assertEquals(analytics.aggregate(new OrderFilter(), OrderStatsGrouping.DAY),
+                rollup.query(new OrderFilter(), OrderStatsGrouping.DAY));
+    }
+
+    @Test
+    void canServe_NotBeforeFirstRebuild() {
+        mongoTemplate.dropCollection(OrderStatsRollup.BUILD_COLLECTION);
+        OrderStatsRollup unbuilt = new OrderStatsRollup(mongoTemplate, archive);
+        ReflectionTestUtils.setField(unbuilt, "enabled", true);
+
+        assertFalse(unbuilt.canServe(new OrderFilter(), OrderStatsGrouping.STATUS));
+
+        unbuilt.rebuild();
+        assertTrue(unbuilt.canServe(new OrderFilter(), OrderStatsGrouping.STATUS));
+        assertTrue(rollup.canServe(new OrderFilter(), OrderStatsGrouping.STATUS));
+    }
+
+    @Test
+    void rebuild_WhileAnotherNodeRebuilds_Rejected() {
+        List<OrderStatsDto> before = rollup.query(new OrderFilter(), OrderStatsGrouping.STATUS);
+        OrderStatsRollup otherNode = new OrderStatsRollup(mongoTemplate, archive);
+        mongoTemplate.getCollection(OrderStatsRollup.BUILD_COLLECTION).updateOne(
+                new Document("_id", OrderStatsRollup.COLLECTION),
+                new Document("$set", new Document("owner", "other-node")
+                        .append("until", new Date(System.currentTimeMillis() + 60_000))));
+
+        assertThrows(OrderConflictException.class, otherNode::rebuild);
+        assertEquals(before, rollup.query(new OrderFilter(), OrderStatsGrouping.STATUS));
+
+        // An expired lease is taken over
+        mongoTemplate.getCollection(OrderStatsRollup.BUILD_COLLECTION).updateOne(
+                new Document("_id", OrderStatsRollup.COLLECTION),
+                new Document("$set", new Document("until", new Date(System.currentTimeMillis() - 1))));
+        otherNode.rebuild();
+        assertEquals(analytics.aggregate(new OrderFilter(), OrderStatsGrouping.STATUS),
+                rollup.query(new OrderFilter(), OrderStatsGrouping.STATUS));
+    }
+
+    @Test
+    void recordCreated_WithoutCreatedAt_MatchesRebuild() {
+        Order order = new Order();
+        order.setCustomerId("customer-0");
+        order.setStatus("NEW");
+        order.setCreatedAt(null);
+        order.setItems(List.of());
+        mongoTemplate.insert(order);
+
+        rollup.recordCreated(List.of(order));
+        rollup.recordTransitions(List.of(order), "CANCELLED");
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(order.getId())),
+                new Update().set("status", "CANCELLED"), Order.class);
+        List<OrderStatsDto> incremental = rollup.query(new OrderFilter(), OrderStatsGrouping.STATUS);
+
+        rollup.rebuild();
+        assertEquals(rollup.query(new OrderFilter(), OrderStatsGrouping.STATUS), incremental);
+        assertEquals(analytics.aggregate(new OrderFilter(), OrderStatsGrouping.STATUS), incremental);
+    }
+
+    @Test
+    void aggregate_IncludesArchivedOrders() {
+        OrderFilter cancelledInRange = new OrderFilter("CANCELLED", null, START.plusDays(1), START.plusDays(3));
+        List<OrderStatsDto> byDay = analytics.aggregate(new OrderFilter(), OrderStatsGrouping.DAY);
+        List<OrderStatsDto> byCustomer = analytics.aggregate(cancelledInRange, OrderStatsGrouping.CUSTOMER);
+
+        new OrderArchiver(mongoTemplate, archive, new SimpleMeterRegistry()).archiveBatch(LocalDateTime.now());
+        try {
+            assertFalse(archive.buckets().isEmpty());
+            assertEquals(0, mongoTemplate.count(Query.query(Criteria.where("status").is("CANCELLED")), Order.class));
+            assertEquals(byDay, analytics.aggregate(new OrderFilter(), OrderStatsGrouping.DAY));
+            assertEquals(byCustomer, analytics.aggregate(cancelledInRange, OrderStatsGrouping.CUSTOMER));
+
+            rollup.rebuild();
+            assertEquals(byDay, rollup.query(new OrderFilter(), OrderStatsGrouping.DAY));
+        } finally {
+            archive.buckets().forEach(bucket -> mongoTemplate.dropCollection(bucket.collection()));
+            archive.refreshBuckets();
+        }
+    }
+
+    @Test
+    void aggregate_OrderLeftInBothCollectionsCountsOnce() {
+        List<OrderStatsDto> byDay = analytics.aggregate(new OrderFilter(), OrderStatsGrouping.DAY);
+
+        // An archiver run that stopped after the upsert: the cancelled orders are in the buckets and still hot
+        List<Document> cancelled = mongoTemplate.getCollection("orders").find(new Document("status", "CANCELLED"))
+                .into(new ArrayList<>());
+        archive.archive(cancelled);
+        try {
+            assertFalse(archive.buckets().isEmpty());
+            assertEquals(byDay, analytics.aggregate(new OrderFilter(), OrderStatsGrouping.DAY));
+
+            rollup.rebuild();
+            assertEquals(byDay, rollup.query(new OrderFilter(), OrderStatsGrouping.DAY));
+        } finally {
+            archive.buckets().forEach(bucket -> mongoTemplate.dropCollection(bucket.collection()));
+            archive.refreshBuckets();
+        }
+    }
+
+    @Test
+    void getStats_ByStatus() {
+        List<OrderStatsDto> stats = analytics.getStats(new OrderFilter(), OrderStatsGrouping.STATUS);
+
+        assertEquals(List.of("CANCELLED", "IN_PROGRESS", "NEW"), stats.stream().map(OrderStatsDto::getKey).toList());
+        assertEquals(ORDERS, stats.stream().mapToLong(OrderStatsDto::getCount).sum());
+        assertEquals(totalRevenue, stats.stream().mapToDouble(OrderStatsDto::getRevenue).sum());
+    }
+
+    @Test
+    void getStats_ByCustomerAndHour_UsePipeline() {
+        OrderFilter filter = OrderFilter.of(null, "customer-3");
+        assertFalse(rollup.canServe(filter, OrderStatsGrouping.HOUR));
+        assertFalse(rollup.canServe(new OrderFilter(), OrderStatsGrouping.CUSTOMER));
+        assertFalse(rollup.canServe(new OrderFilter(null, null, START.plusHours(5), null), OrderStatsGrouping.DAY));
+
+        List<OrderStatsDto> customers = analytics.getStats(new OrderFilter(), OrderStatsGrouping.CUSTOMER);
+        assertEquals(7, customers.size());
+        assertEquals(totalRevenue, customers.stream().mapToDouble(OrderStatsDto::getRevenue).sum());
+
+        List<OrderStatsDto> hours = analytics.getStats(filter, OrderStatsGrouping.HOUR);
+        assertEquals(START.plusMinutes(37L * 3).withMinute(0).toString(), hours.get(0).getKey());
+        assertEquals(customers.get(3).getCount(), hours.stream().mapToLong(OrderStatsDto::getCount).sum());
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.config.OrderIdConfig;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.id.OrderIdAssigner;
+import com.example.orderservice.repository.OrderArchive;
+import com.example.orderservice.repository.OrderCursor;
+import com.example.orderservice.repository.OrderFilter;
+import com.example.orderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Archives part of the orders into embedded Mongo buckets and checks that reads through the repository
+ * still see every order, once and in keyset order.
+ */
+@DataMongoTest(properties = "de.flapdoodle.mongodb.embedded.version=7.0.2")
+@Import({OrderArchive.class, OrderIdConfig.class, OrderIdAssigner.class})
+class OrderArchiverTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 20, 0, 0);
+    private static final List<String> STATUSES = List.of("NEW", "DELIVERED", "CANCELLED", "IN_PROGRESS");
+    private static final int ORDERS = 120;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderRepository repository;
+
+    @Autowired
+    private OrderArchive archive;
+
+    private OrderArchiver archiver;
+    private List<Order> orders;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(Order.class);
+        dropBuckets();
+        archiver = new OrderArchiver(mongoTemplate, archive, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(archiver, "batchSize", 25);
+
+        orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setCustomerId("customer-" + (i % 5));
+            order.setStatus(STATUSES.get(i % STATUSES.size()));
+            // Spans January to March, so three buckets
+            order.setCreatedAt(START.plusHours(13L * i));
+            Order.Item item = new Order.Item();
+            item.setSku("SKU" + i);
+            item.setQuantity(1);
+            item.setPrice(2.5);
+            order.setItems(List.of(item));
+            orders.add(order);
+        }
+        mongoTemplate.insertAll(orders);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dropBuckets();
+    }
+
+    @Test
+    void archiveBatch_MovesOnlyOldTerminalOrdersWithoutPendingEvents() {
+        Order pending = orders.get(1);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(pending.getId())),
+                OrderService.statusUpdate("NEW", "DELIVERED", START), Order.class);
+        LocalDateTime cutoff = START.plusDays(40);
+
+        int batches = 0;
+        while (archiver.archiveBatch(cutoff) > 0) {
+            batches++;
+        }
+
+        long expected = orders.stream()
+                .filter(order -> OrderArchive.ARCHIVED_STATUSES.contains(order.getStatus()))
+                .filter(order -> order.getCreatedAt().isBefore(cutoff))
+                .filter(order -> order != pending)
+                .count();
+        assertTrue(batches > 1);
+        assertEquals(ORDERS - expected, mongoTemplate.count(new Query(), Order.class));
+        assertTrue(mongoTemplate.exists(Query.query(Criteria.where("_id").is(pending.getId())), Order.class));
+        assertEquals(List.of(YearMonth.of(2024, 1), YearMonth.of(2024, 2)),
+                archive.buckets().stream().map(OrderArchive.Bucket::month).toList());
+    }
+
+    @Test
+    void archive_WritesCompactDocumentsToCompressedBuckets() {
+        archiveAll();
+
+        String bucket = OrderArchive.collectionName(YearMonth.of(2024, 1));
+        Document stored = mongoTemplate.getCollection(bucket).find().first();
+        assertNotNull(stored);
+        assertFalse(stored.containsKey("_class"));
+        assertFalse(stored.containsKey("outbox"));
+        Document options = mongoTemplate.getDb().listCollections().filter(new Document("name", bucket)).first()
+                .get("options", Document.class);
+        assertEquals("block_compressor=zstd",
+                options.get("storageEngine", Document.class).get("wiredTiger", Document.class).getString("configString"));
+    }
+
+    @Test
+    void findById_FallsThroughToArchive() {
+        archiveAll();
+        Order delivered = orders.get(1);
+
+        assertTrue(repository.findById(delivered.getId()).isEmpty());
+        Order found = archive.findById(delivered.getId()).orElseThrow();
+        assertEquals(delivered.getCustomerId(), found.getCustomerId());
+        assertEquals(delivered.getCreatedAt(), found.getCreatedAt());
+        assertEquals("DELIVERED", found.getStatus());
+        assertTrue(archive.findById(orders.get(0).getId()).isEmpty());
+    }
+
+    @Test
+    void findPage_MergesHotAndArchivedOrders() {
+        archiveAll();
+        // An order copied but not yet removed from the hot collection is returned once
+        Document copied = mongoTemplate.findById(orders.get(5).getId(), Document.class,
+                OrderArchive.collectionName(YearMonth.of(2024, 1)));
+        mongoTemplate.getCollection("orders").insertOne(copied);
+        // Hot orders without createdAt sort before every archived one
+        List<Order> undated = new ArrayList<>();
+        for (String id : List.of("undated-1", "undated-2")) {
+            Order order = new Order();
+            order.setId(id);
+            order.setCustomerId("customer-2");
+            order.setStatus("NEW");
+            order.setCreatedAt(null);
+            order.setItems(List.of());
+            undated.add(order);
+        }
+        mongoTemplate.insertAll(undated);
+        orders.addAll(0, undated);
+
+        for (OrderFilter filter : List.of(new OrderFilter(), OrderFilter.of(null, "customer-2"),
+                OrderFilter.of("CANCELLED", null), new OrderFilter(null, null, START.plusDays(8), START.plusDays(45)))) {
+            List<String> pages = new ArrayList<>();
+            OrderCursor after = null;
+            List<Order> page;
+            do {
+                page = repository.findPage(filter, after, 7);
+                page.forEach(order -> pages.add(order.getId()));
+                after = page.isEmpty() ? null : OrderCursor.after(page.get(page.size() - 1));
+            } while (page.size() == 7);
+
+            assertEquals(expected(filter), pages, filter.toString());
+            try (Stream<Order> stream = repository.streamFiltered(filter)) {
+                assertEquals(expected(filter), stream.map(Order::getId).toList(), filter.toString());
+            }
+        }
+    }
+
+    @Test
+    void findPage_NonTerminalStatusSkipsArchive() {
+        archiveAll();
+        // Would be returned if the archive were read for this filter
+        String bucket = OrderArchive.collectionName(YearMonth.of(2024, 1));
+        Document stray = mongoTemplate.getCollection(bucket).find().first();
+        mongoTemplate.getCollection(bucket).insertOne(new Document(stray).append("_id", "stray").append("status", "NEW"));
+
+        List<Order> page = repository.findPage(OrderFilter.of("NEW", null), null, ORDERS);
+
+        assertEquals(expected(OrderFilter.of("NEW", null)), page.stream().map(Order::getId).toList());
+    }
+
+    private void archiveAll() {
+        int moved;
+        do {
+            moved = archiver.archiveBatch(START.plusYears(1));
+        } while (moved > 0);
+        assertEquals(ORDERS / 2, mongoTemplate.count(new Query(), Order.class));
+    }
+
+    // Ids matching the filter in keyset order, as inserted
+    private List<String> expected(OrderFilter filter) {
+        return orders.stream()
+                .filter(order -> filter.getStatus() == null || filter.getStatus().equals(order.getStatus()))
+                .filter(order -> filter.getCustomerId() == null || filter.getCustomerId().equals(order.getCustomerId()))
+                .filter(order -> filter.getFrom() == null
+                        || order.getCreatedAt() != null && !order.getCreatedAt().isBefore(filter.getFrom()))
+                .filter(order -> filter.getTo() == null
+                        || order.getCreatedAt() != null && order.getCreatedAt().isBefore(filter.getTo()))
+                .map(Order::getId)
+                .toList();
+    }
+
+    private void dropBuckets() {
+        mongoTemplate.getCollectionNames().stream()
+                .filter(name -> name.startsWith("orders_archive_"))
+                .forEach(mongoTemplate::dropCollection);
+        archive.refreshBuckets();
+    }
+}
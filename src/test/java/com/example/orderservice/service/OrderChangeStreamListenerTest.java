@@ -0,0 +1,236 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.config.OrderIdConfig;
+import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.id.OrderIdAssigner;
+import com.example.orderservice.repository.OrderArchive;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes to orders behind the service's back (single-node replica set, change streams need one)
+ * and checks that the cache and outbox follow.
+ */
+@DataMongoTest(properties = {
+        "de.flapdoodle.mongodb.embedded.version=7.0.2",
+        "spring.mongodb.embedded.storage.repl-set-name=rs0"
+})
+@Import({OrderArchive.class, OrderIdConfig.class, OrderIdAssigner.class})
+class OrderChangeStreamListenerTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+    private OrderChangeStreamListener listener;
+    private OrderChangeStreamListener otherNode;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(OrderChangeStreamListener.TOKEN_COLLECTION);
+        mongoTemplate.dropCollection(OrderChangeStreamListener.LEASE_COLLECTION);
+        mongoTemplate.remove(new Query(), Order.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (listener != null) {
+            listener.stop();
+        }
+        if (otherNode != null) {
+            otherNode.stop();
+        }
+    }
+
+    @Test
+    void externalUpdate_RefreshesCachedOrder() {
+        Order order = insert();
+        cache().put(order.getId(), OrderMapper.toDto(order));
+        start(false);
+
+        mongoTemplate.updateFirst(byId(order), new Update().set("status", "SHIPPED"), Order.class);
+
+        await().atMost(TIMEOUT).until(() -> "SHIPPED".equals(cached(order).getStatus()));
+        assertTrue(mongoTemplate.findById(order.getId(), Order.class).getOutbox().isEmpty());
+    }
+
+    @Test
+    void externalUpdate_ObjectIdOrderIsCachedUnderHexId() {
+        ObjectId id = new ObjectId();
+        mongoTemplate.getCollection("orders").insertOne(new Document("_id", id).append("customerId", "customer-1")
+                .append("status", "NEW").append("items", List.of()));
+        Order order = mongoTemplate.findById(id.toHexString(), Order.class);
+        cache().put(id.toHexString(), OrderMapper.toDto(order));
+        start(false);
+
+        mongoTemplate.updateFirst(byId(order), new Update().set("status", "SHIPPED"), Order.class);
+
+        await().atMost(TIMEOUT).until(() -> "SHIPPED".equals(cached(order).getStatus()));
+    }
+
+    @Test
+    void delete_EvictsCachedOrder() {
+        Order order = insert();
+        cache().put(order.getId(), OrderMapper.toDto(order));
+        start(false);
+
+        mongoTemplate.remove(byId(order), Order.class);
+
+        await().atMost(TIMEOUT).until(() -> cache().get(order.getId()) == null);
+    }
+
+    @Test
+    void externalStatusChange_QueuesEventOnce() {
+        Order order = insert();
+        mongoTemplate.executeCommand(new Document("collMod", mongoTemplate.getCollectionName(Order.class))
+                .append("changeStreamPreAndPostImages", new Document("enabled", true)));
+        start(true);
+
+        mongoTemplate.updateFirst(byId(order), new Update().set("status", "SHIPPED"), Order.class);
+
+        await().atMost(TIMEOUT).until(() -> !mongoTemplate.findById(order.getId(), Order.class).getOutbox().isEmpty());
+        List<Order.OutboxEvent> outbox = mongoTemplate.findById(order.getId(), Order.class).getOutbox();
+        assertEquals(1, outbox.size());
+        assertEquals("NEW", outbox.get(0).getOldStatus());
+        assertEquals("SHIPPED", outbox.get(0).getNewStatus());
+        assertNotNull(outbox.get(0).getTimestamp());
+    }
+
+    @Test
+    void externalStatusChange_ReplayAfterDrainIsNotQueuedAgain() {
+        Order order = insert();
+        start(true);
+        List<Document> tokensBefore = mongoTemplate.getCollection(OrderChangeStreamListener.TOKEN_COLLECTION).find().into(new ArrayList<>());
+
+        mongoTemplate.updateFirst(byId(order), new Update().set("status", "SHIPPED"), Order.class);
+        await().atMost(TIMEOUT).until(() -> !mongoTemplate.findById(order.getId(), Order.class).getOutbox().isEmpty());
+        // Published and removed by the relay
+        mongoTemplate.updateFirst(byId(order), new Update().unset("outbox"), Order.class);
+        listener.stop();
+
+        // A restart or lease handover from an older token replays the change
+        mongoTemplate.getCollection(OrderChangeStreamListener.TOKEN_COLLECTION).deleteMany(new Document());
+        mongoTemplate.getCollection(OrderChangeStreamListener.TOKEN_COLLECTION).insertMany(tokensBefore);
+        listener = newListener(true, "node-1");
+        listener.start();
+        Document replayedFrom = tokensBefore.stream().filter(token -> "test".equals(token.get("_id"))).findFirst().orElseThrow();
+        await().atMost(TIMEOUT).until(() -> !replayedFrom.get("token").equals(mongoTemplate.getCollection(OrderChangeStreamListener.TOKEN_COLLECTION)
+                .find(new Document("_id", "test")).first().get("token")));
+
+        assertTrue(mongoTemplate.findById(order.getId(), Order.class).getOutbox().isEmpty());
+    }
+
+    @Test
+    void lease_OnlyHolderWritesCache() {
+        Order order = insert();
+        start(false);
+        ConcurrentMapCacheManager otherCacheManager = new ConcurrentMapCacheManager();
+        otherNode = new OrderChangeStreamListener(mongoTemplate, otherCacheManager, new SimpleMeterRegistry(),
+                "test", "node-2", Duration.ZERO, Duration.ofSeconds(15), false);
+        otherNode.start();
+        await().atMost(TIMEOUT).until(() -> mongoTemplate.getCollection(OrderChangeStreamListener.TOKEN_COLLECTION)
+                .countDocuments(new Document("_id", "test@node-2")) > 0);
+
+        mongoTemplate.updateFirst(byId(order), new Update().set("status", "SHIPPED"), Order.class);
+
+        await().atMost(TIMEOUT).until(() -> cache().get(order.getId()) != null);
+        assertNull(otherCacheManager.getCache(OrderChangeStreamListener.CACHE_NAME).get(order.getId()));
+
+        // The lease moves to the other node once the holder stops
+        listener.stop();
+        listener = null;
+        mongoTemplate.updateFirst(byId(order), new Update().set("status", "CANCELLED"), Order.class);
+        await().atMost(Duration.ofSeconds(20)).until(() -> otherCacheManager.getCache(OrderChangeStreamListener.CACHE_NAME)
+                .get(order.getId()) != null);
+    }
+
+    @Test
+    void restart_ResumesFromSavedToken() {
+        Order order = insert();
+        cache().put(order.getId(), OrderMapper.toDto(order));
+        start(false);
+        listener.stop();
+
+        // Missed while no listener was running
+        mongoTemplate.updateFirst(byId(order), new Update().set("status", "CANCELLED"), Order.class);
+        assertEquals("NEW", cached(order).getStatus());
+        listener = newListener(false, "node-1");
+        listener.start();
+
+        await().atMost(TIMEOUT).until(() -> "CANCELLED".equals(cached(order).getStatus()));
+    }
+
+    @Test
+    void outboxOnlyUpdate_IsFilteredOut() {
+        Order order = insert();
+        Order marker = insert();
+        start(false);
+        OrderResponseDto stale = OrderMapper.toDto(order);
+        stale.setStatus("CACHED");
+        cache().put(order.getId(), stale);
+
+        // Relay bookkeeping, then a real change on another order; events arrive in order
+        mongoTemplate.updateFirst(byId(order), new Update().set(OrderEventRelay.LEASE_OWNER, "relay"), Order.class);
+        mongoTemplate.updateFirst(byId(marker), new Update().set("status", "SHIPPED"), Order.class);
+
+        await().atMost(TIMEOUT).until(() -> cache().get(marker.getId()) != null);
+        assertEquals("CACHED", cached(order).getStatus());
+    }
+
+    private void start(boolean queueExternalEvents) {
+        listener = newListener(queueExternalEvents, "node-1");
+        listener.start();
+        // The first resume token is saved once the stream is open; writes after that are seen
+        await().atMost(TIMEOUT).until(() -> mongoTemplate.getCollection(OrderChangeStreamListener.TOKEN_COLLECTION).countDocuments() > 0);
+    }
+
+    private OrderChangeStreamListener newListener(boolean queueExternalEvents, String node) {
+        return new OrderChangeStreamListener(mongoTemplate, cacheManager, new SimpleMeterRegistry(),
+                "test", node, Duration.ZERO, Duration.ofSeconds(15), queueExternalEvents);
+    }
+
+    private Order insert() {
+        Order order = new Order();
+        order.setCustomerId("customer-1");
+        Order.Item item = new Order.Item();
+        item.setSku("SKU1");
+        item.setQuantity(1);
+        item.setPrice(10.0);
+        order.setItems(List.of(item));
+        return mongoTemplate.insert(order);
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(OrderChangeStreamListener.CACHE_NAME);
+    }
+
+    private OrderResponseDto cached(Order order) {
+        return cache().get(order.getId(), OrderResponseDto.class);
+    }
+
+    private static Query byId(Order order) {
+        return Query.query(Criteria.where("_id").is(order.getId()));
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.event.EventCodec;
+import com.example.orderservice.event.JsonEventCodec;
+import com.example.orderservice.metrics.OrderMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderEventRelayTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OrderEventRelay relay;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new OrderEventRelay(mongoTemplate, kafkaTemplate, new JsonEventCodec(objectMapper),
+                new OrderMetrics(ObservationRegistry.NOOP, meterRegistry));
+        ReflectionTestUtils.setField(relay, "topic", "orders.events");
+        ReflectionTestUtils.setField(relay, "batchSize", 10);
+        ReflectionTestUtils.setField(relay, "lease", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(relay, "maxAttempts", 3);
+
+        order = new Order();
+        order.setId("test-id");
+        order.setOutbox(List.of(event("e1", "NEW", "IN_PROGRESS"), event("e2", "IN_PROGRESS", "DELIVERED")));
+    }
+
+    @Test
+    void drainBatch_PublishesInOrderAndPullsAckedEvents() {
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order), List.of(order));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulkOperations);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        assertEquals(1, relay.drainBatch());
+
+        ArgumentCaptor<ProducerRecord<String, byte[]>> records = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(2)).send(records.capture());
+        assertEquals("test-id", records.getAllValues().get(0).key());
+        assertTrue(new String(records.getAllValues().get(0).value(), StandardCharsets.UTF_8).contains("\"newStatus\":\"IN_PROGRESS\""));
+        assertTrue(new String(records.getAllValues().get(1).value(), StandardCharsets.UTF_8).contains("\"newStatus\":\"DELIVERED\""));
+        assertEquals(JsonEventCodec.CONTENT_TYPE, new String(
+                records.getAllValues().get(0).headers().lastHeader(EventCodec.CONTENT_TYPE_HEADER).value(), StandardCharsets.UTF_8));
+        verify(kafkaTemplate).flush();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).updateOne(any(Query.class), update.capture());
+        Document pull = update.getValue().getUpdateObject().get("$pull", Document.class);
+        assertEquals(List.of("e1", "e2"), pull.get("outbox", Document.class).get("eventId", Document.class).get("$in"));
+        assertTrue(update.getValue().getUpdateObject().containsKey("$unset"));
+        verify(bulkOperations).execute();
+        assertEquals(2, meterRegistry.get("order.outbox.publish").tag("result", "acked").timer().count());
+    }
+
+    @Test
+    void drainBatch_SendFailure_KeepsFailedAndLaterEvents() {
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order), List.of(order));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulkOperations);
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        relay.drainBatch();
+
+        // Nothing acked, so nothing pulled and the lease is kept; the failure is recorded on the event
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).updateOne(any(Query.class), update.capture());
+        Document failure = update.getValue().getUpdateObject();
+        assertFalse(failure.containsKey("$pull"));
+        assertFalse(failure.containsKey("$unset"));
+        assertEquals(1, failure.get("$inc", Document.class).get("outbox.$[failed].attempts"));
+        assertEquals("broker down", failure.get("$set", Document.class).get("outbox.$[failed].lastError"));
+        assertTrue(update.getValue().hasArrayFilters());
+        verify(bulkOperations).execute();
+        assertEquals(1, meterRegistry.get("order.outbox.publish").tag("result", "failed").timer().count());
+    }
+
+    @Test
+    void drainBatch_LaterEventFails_PullsAckedPrefixAndRecordsFailure() {
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order), List.of(order));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulkOperations);
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("timeout", new IllegalStateException("leader not available"))));
+
+        relay.drainBatch();
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), updates.capture());
+        Document pull = updates.getAllValues().get(0).getUpdateObject().get("$pull", Document.class);
+        assertEquals(List.of("e1"), pull.get("outbox", Document.class).get("eventId", Document.class).get("$in"));
+        assertEquals("leader not available",
+                updates.getAllValues().get(1).getUpdateObject().get("$set", Document.class).get("outbox.$[failed].lastError"));
+    }
+
+    @Test
+    void drainBatch_LastAttemptFails_ParksEventAndReleasesLease() {
+        order.getOutbox().get(0).setAttempts(2);
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order), List.of(order));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulkOperations);
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("record too large")))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        relay.drainBatch();
+
+        // One update: the poison event leaves the outbox for outboxParked, and the lease is released so e2 goes out next poll
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).updateOne(any(Query.class), update.capture());
+        Document parked = update.getValue().getUpdateObject();
+        assertEquals(List.of("e1"), parked.get("$pull", Document.class).get("outbox", Document.class)
+                .get("eventId", Document.class).get("$in"));
+        Order.OutboxEvent event = (Order.OutboxEvent) parked.get("$push", Document.class).get(OrderEventRelay.PARKED);
+        assertEquals("e1", event.getEventId());
+        assertEquals(3, event.getAttempts());
+        assertEquals("record too large", event.getLastError());
+        assertTrue(parked.containsKey("$unset"));
+        assertFalse(parked.containsKey("$inc"));
+        assertEquals(1, meterRegistry.get("order.outbox.parked").counter().count());
+    }
+
+    @Test
+    void drainBatch_EmptyOutbox_DoesNothing() {
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of());
+
+        assertEquals(0, relay.drainBatch());
+
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private Order.OutboxEvent event(String id, String oldStatus, String newStatus) {
+        Order.OutboxEvent event = new Order.OutboxEvent();
+        event.setEventId(id);
+        event.setOldStatus(oldStatus);
+        event.setNewStatus(newStatus);
+        event.setTimestamp(LocalDateTime.now());
+        return event;
+    }
+}
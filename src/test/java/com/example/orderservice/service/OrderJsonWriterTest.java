@@ -0,0 +1,107 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.entity.Order;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderJsonWriterTest {
+
+    // Same defaults as the ObjectMapper Spring Boot configures
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    static Stream<LocalDateTime> dateTimes() {
+        LocalDateTime base = LocalDateTime.of(2025, 10, 19, 22, 10, 25);
+        return Stream.of(
+                base,
+                base.withSecond(0),
+                LocalDateTime.of(2025, 1, 2, 3, 4),
+                base.withNano(120_000_000),
+                base.withNano(123_456_789),
+                base.withNano(1_000),
+                base.withNano(1),
+                LocalDateTime.of(999, 12, 31, 23, 59, 59),
+                LocalDateTime.of(12345, 6, 7, 8, 9, 10),
+                LocalDateTime.of(-5, 6, 7, 8, 9, 10),
+                null);
+    }
+
+    @ParameterizedTest
+    @MethodSource("dateTimes")
+    void write_MatchesJacksonForDateTimes(LocalDateTime dateTime) throws IOException {
+        Order order = order(2);
+        order.setCreatedAt(dateTime);
+
+        assertEquals(objectMapper.writeValueAsString(OrderMapper.toDto(order)), write(order));
+    }
+
+    @ParameterizedTest
+    @MethodSource("orders")
+    void write_MatchesJacksonForEntityAndDto(Order order) throws IOException {
+        String expected = objectMapper.writeValueAsString(OrderMapper.toDto(order));
+
+        assertEquals(expected, write(order));
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            new OrderJsonWriter(generator).write(OrderMapper.toDto(order));
+        }
+        assertEquals(expected, out.toString());
+    }
+
+    static Stream<Order> orders() {
+        Order empty = new Order();
+        empty.setId(null);
+        empty.setCustomerId(null);
+        empty.setStatus(null);
+        empty.setItems(List.of());
+        empty.setCreatedAt(null);
+        empty.setUpdatedAt(null);
+
+        Order escaped = order(3);
+        escaped.setCustomerId("\"quoted\" \\ ñandú \n\u0001");
+        escaped.getItems().get(0).setPrice(1e-7);
+        escaped.getItems().get(1).setPrice(Double.MAX_VALUE);
+        escaped.getItems().get(2).setPrice(-0.0);
+        escaped.setVersion(Long.MAX_VALUE);
+        return Stream.of(order(1), order(50), empty, escaped);
+    }
+
+    private String write(Order order) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            new OrderJsonWriter(generator).write(order);
+        }
+        return out.toString();
+    }
+
+    private static Order order(int itemCount) {
+        Order order = new Order();
+        order.setId("test-id");
+        order.setCustomerId("123");
+        order.setStatus("IN_PROGRESS");
+        List<Order.Item> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            Order.Item item = new Order.Item();
+            item.setSku("SKU" + i);
+            item.setQuantity(i + 1);
+            item.setPrice(10.1 * i);
+            items.add(item);
+        }
+        order.setItems(items);
+        order.setCreatedAt(LocalDateTime.of(2025, 10, 19, 22, 10, 25, 123_000_000));
+        order.setUpdatedAt(LocalDateTime.of(2025, 10, 20, 8, 0));
+        order.setVersion(4L);
+        return order;
+    }
+}
@@ -1,28 +1,56 @@
 package com.example.orderservice.service;
 
+import com.example.orderservice.cache.CacheBatchEvictor;
+import com.example.orderservice.dto.BatchResultDto;
+import com.example.orderservice.dto.BulkUpdateStatusDto;
 import com.example.orderservice.dto.CreateOrderDto;
 import com.example.orderservice.dto.ItemDto;
+import com.example.orderservice.dto.OrderPageDto;
 import com.example.orderservice.dto.OrderResponseDto;
 import com.example.orderservice.dto.UpdateStatusDto;
 import com.example.orderservice.entity.Order;
+import com.example.orderservice.exception.OrderConflictException;
+import com.example.orderservice.metrics.OrderMetrics;
+import com.example.orderservice.repository.OrderArchive;
+import com.example.orderservice.repository.OrderCursor;
+import com.example.orderservice.repository.OrderFilter;
 import com.example.orderservice.repository.OrderRepository;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.kafka.clients.producer.ProducerRecord;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.bson.BsonDocument;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,10 +60,22 @@ class OrderServiceTest {
     private OrderRepository repository;
 
     @Mock
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private MongoTemplate mongoTemplate;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private CacheBatchEvictor cacheEvictor;
+
+    @Mock
+    private OrderStatsRollup statsRollup;
+
+    @Mock
+    private CustomerSummaryService customerSummaries;
+
+    @Mock
+    private OrderArchive archive;
+
+    @Spy
+    private OrderMetrics metrics = new OrderMetrics(ObservationRegistry.NOOP, new SimpleMeterRegistry());
 
     @InjectMocks
     private OrderService service;
@@ -75,6 +115,55 @@ class OrderServiceTest {
         assertNotNull(result.getId());
         assertEquals("123", result.getCustomerId());
         verify(repository).save(any(Order.class));
+        verify(customerSummaries).recordCreated(order);
+    }
+
+    @Test
+    void createBatch_ReportsPartialFailures() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+        BulkOperationException duplicate = mock(BulkOperationException.class);
+        when(duplicate.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)));
+        when(bulk.execute()).thenThrow(duplicate);
+
+        CreateOrderDto invalid = new CreateOrderDto();
+        BatchResultDto result = service.createBatch(List.of(createDto, invalid, createDto, createDto).iterator());
+
+        assertEquals(2, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertEquals(4, result.getResults().size());
+        assertTrue(result.getResults().stream()
+                .anyMatch(r -> r.getIndex() == 1 && "FAILED".equals(r.getOutcome())));
+        assertTrue(result.getResults().stream()
+                .anyMatch(r -> r.getIndex() == 2 && "duplicate key".equals(r.getError())));
+        verify(bulk).insert(argThat((List<?> orders) -> orders.size() == 3));
+        verify(statsRollup).recordCreated(argThat(orders -> orders.size() == 2));
+        verify(customerSummaries).recordAllCreated(argThat(orders -> orders.size() == 2));
+        verify(repository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void createBatch_UnreadableItems_ReportedPerItem() throws Exception {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+        String valid = "{\"customerId\":\"123\",\"items\":[{\"sku\":\"SKU1\",\"quantity\":1,\"price\":10.0}]}";
+        // Item 1 has the wrong shape and is skipped; item 3 is malformed JSON, so nothing after it can be read
+        String body = valid + "\n{\"customerId\":\"123\",\"items\":\"none\"}\n" + valid + "\n{\"customerId\":\"123\" \"items\":[]}\n" + valid;
+
+        BatchResultDto result;
+        try (MappingIterator<CreateOrderDto> dtos = new ObjectMapper().readerFor(CreateOrderDto.class).readValues(body)) {
+            result = service.createBatch(dtos);
+        }
+
+        assertEquals(2, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertTrue(result.getResults().stream()
+                .anyMatch(r -> r.getIndex() == 1 && r.getError().startsWith("Invalid order")));
+        assertTrue(result.getResults().stream()
+                .anyMatch(r -> r.getIndex() == 3 && r.getError().startsWith("Unreadable request body")));
+        verify(bulk).insert(argThat((List<?> orders) -> orders.size() == 2));
     }
 
     @Test
@@ -85,43 +174,242 @@ class OrderServiceTest {
 
         assertEquals("test-id", result.getId());
         verify(repository).findById("test-id");
+        verifyNoInteractions(archive);
+    }
+
+    @Test
+    void getById_FallsBackToArchive() {
+        order.setStatus("DELIVERED");
+        when(repository.findById("test-id")).thenReturn(Optional.empty());
+        when(archive.findById("test-id")).thenReturn(Optional.of(order));
+
+        OrderResponseDto result = service.getById("test-id");
+
+        assertEquals("DELIVERED", result.getStatus());
+    }
+
+    @Test
+    void updateStatus_ArchivedOrder_ThrowsConflict() {
+        order.setStatus("DELIVERED");
+        when(repository.findById("test-id")).thenReturn(Optional.empty());
+        when(archive.findById("test-id")).thenReturn(Optional.of(order));
+        UpdateStatusDto dto = new UpdateStatusDto();
+        dto.setStatus("IN_PROGRESS");
+
+        OrderConflictException e = assertThrows(OrderConflictException.class, () -> service.updateStatus("test-id", dto));
+        assertEquals("Invalid transition DELIVERED -> IN_PROGRESS", e.getMessage());
     }
 
     @Test
     void getFiltered_ByStatusAndCustomer_Success() {
-        when(repository.findByStatusAndCustomerId("NEW", "123")).thenReturn(List.of(order));
+        when(repository.findPage(OrderFilter.of("NEW", "123"), null, OrderService.DEFAULT_PAGE_SIZE + 1)).thenReturn(List.of(order));
 
-        List<OrderResponseDto> result = service.getFiltered("NEW", "123");
+        OrderPageDto result = service.getFiltered(OrderFilter.of("NEW", "123"), null, null);
 
-        assertEquals(1, result.size());
-        verify(repository).findByStatusAndCustomerId("NEW", "123");
+        assertEquals(1, result.getItems().size());
+        assertNull(result.getNextCursor());
+        verify(repository, never()).findAll();
     }
 
     @Test
-    void updateStatus_PublishesEventAndUpdates() throws Exception {
-        when(repository.findById("test-id")).thenReturn(Optional.of(order));
-        when(repository.save(any(Order.class))).thenReturn(order);
-        when(objectMapper.writeValueAsString(any())).thenReturn("{\"event\":\"data\"}");
+    void getFiltered_MorePages_ReturnsCursorOfLastItem() {
+        Order next = new Order();
+        next.setItems(List.of());
+        when(repository.findPage(new OrderFilter(), null, 2)).thenReturn(List.of(order, next));
+
+        OrderPageDto result = service.getFiltered(new OrderFilter(), null, 1);
+
+        assertEquals(1, result.getItems().size());
+        OrderCursor cursor = OrderCursor.decode(result.getNextCursor());
+        assertEquals("test-id", cursor.getId());
+        assertEquals(order.getCreatedAt(), cursor.getCreatedAt());
+    }
+
+    @Test
+    void getFiltered_WithCursor_ContinuesAfterIt() {
+        String token = new OrderCursor(order.getCreatedAt(), "test-id").encode();
+        when(repository.findPage(any(OrderFilter.class), any(OrderCursor.class), eq(11))).thenReturn(List.of());
+
+        OrderPageDto result = service.getFiltered(new OrderFilter(), token, 10);
+
+        assertTrue(result.getItems().isEmpty());
+        ArgumentCaptor<OrderCursor> captor = ArgumentCaptor.forClass(OrderCursor.class);
+        verify(repository).findPage(any(OrderFilter.class), captor.capture(), eq(11));
+        assertEquals("test-id", captor.getValue().getId());
+    }
+
+    @Test
+    void getFiltered_ByCustomerAndDateRange_PassesFilterToRepository() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 2, 1, 0, 0);
+        OrderFilter filter = new OrderFilter(null, "123", from, to);
+        when(repository.findPage(filter, null, OrderService.DEFAULT_PAGE_SIZE + 1)).thenReturn(List.of(order));
+
+        OrderPageDto result = service.getFiltered(filter, null, null);
+
+        assertEquals(1, result.getItems().size());
+    }
+
+    @Test
+    void getFiltered_InvertedDateRange_ThrowsException() {
+        LocalDateTime now = LocalDateTime.now();
+        OrderFilter filter = new OrderFilter(null, null, now, now.minusDays(1));
+
+        assertThrows(IllegalArgumentException.class, () -> service.getFiltered(filter, null, null));
+        verify(repository, never()).findPage(any(), any(), anyInt());
+    }
+
+    @Test
+    void getFiltered_InvalidCursorOrLimit_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> service.getFiltered(new OrderFilter(), "not-a-cursor", null));
+        assertThrows(IllegalArgumentException.class, () -> service.getFiltered(new OrderFilter(), null, OrderService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void updateStatus_AtomicFindAndModifyQueuesOutboxEvent() {
+        order.setVersion(3L);
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(Order.class))).thenReturn(order);
 
         UpdateStatusDto dto = new UpdateStatusDto();
         dto.setStatus("DELIVERED");
+        dto.setExpectedVersion(3L);
 
-        service.updateStatus("test-id", dto);
+        OrderResponseDto result = service.updateStatus("test-id", dto);
 
-        verify(repository).save(any(Order.class));
-        ArgumentCaptor<ProducerRecord> captor = ArgumentCaptor.forClass(ProducerRecord.class);
-        verify(kafkaTemplate).send(captor.capture());
-        assertEquals("orders.events", captor.getValue().topic());
-        verify(objectMapper).writeValueAsString(any());
+        assertEquals("DELIVERED", result.getStatus());
+        assertEquals(4L, result.getVersion());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), eq(Order.class));
+        Document guard = query.getValue().getQueryObject();
+        assertEquals(3L, guard.get("version"));
+        assertEquals(Set.of("NEW", "IN_PROGRESS"),
+                Set.copyOf((List<?>) guard.get("status", Document.class).get("$in")));
+
+        Document set = ((AggregationUpdate) update.getValue()).toPipeline(Aggregation.DEFAULT_CONTEXT).get(0)
+                .get("$set", Document.class);
+        assertEquals("DELIVERED", set.get("status"));
+        List<?> appended = (List<?>) ((List<?>) set.get("outbox", Document.class).get("$concatArrays")).get(1);
+        Document event = (Document) appended.get(0);
+        assertEquals("$status", event.get("oldStatus"));
+        assertEquals("DELIVERED", event.get("newStatus"));
+        assertNotNull(event.get("eventId"));
+        verify(repository, never()).findById(anyString());
+        verify(statsRollup).recordTransitions(List.of(order), "DELIVERED");
+        verify(customerSummaries).recordTransition(order, "DELIVERED");
+        verify(repository, never()).save(any(Order.class));
     }
 
     @Test
-    void updateStatus_InvalidStatus_ThrowsException() {
+    void updateStatus_TerminalStatus_ThrowsConflict() {
+        order.setStatus("DELIVERED");
+        when(repository.findById("test-id")).thenReturn(Optional.of(order));
+
+        UpdateStatusDto dto = new UpdateStatusDto();
+        dto.setStatus("IN_PROGRESS");
+
+        OrderConflictException e = assertThrows(OrderConflictException.class, () -> service.updateStatus("test-id", dto));
+        assertEquals("Invalid transition DELIVERED -> IN_PROGRESS", e.getMessage());
+    }
+
+    @Test
+    void updateStatus_StaleVersion_ThrowsConflict() {
+        order.setVersion(5L);
         when(repository.findById("test-id")).thenReturn(Optional.of(order));
 
+        UpdateStatusDto dto = new UpdateStatusDto();
+        dto.setStatus("IN_PROGRESS");
+        dto.setExpectedVersion(4L);
+
+        assertThrows(OrderConflictException.class, () -> service.updateStatus("test-id", dto));
+    }
+
+    @Test
+    void updateStatus_NotFound_ThrowsException() {
+        when(repository.findById("missing-id")).thenReturn(Optional.empty());
+
+        UpdateStatusDto dto = new UpdateStatusDto();
+        dto.setStatus("IN_PROGRESS");
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service.updateStatus("missing-id", dto));
+        assertEquals("Order not found", e.getMessage());
+    }
+
+    @Test
+    void bulkUpdateStatus_OneBulkWritePerChunkAndSingleEviction() {
+        Order other = new Order();
+        other.setId("other-id");
+        other.setStatus("IN_PROGRESS");
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order, other));
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulk);
+        BulkWriteResult writeResult = mock(BulkWriteResult.class);
+        when(writeResult.getMatchedCount()).thenReturn(2);
+        when(bulk.execute()).thenReturn(writeResult);
+
+        BulkUpdateStatusDto dto = new BulkUpdateStatusDto();
+        dto.setIds(List.of("test-id", "missing-id", "other-id"));
+        dto.setStatus("DELIVERED");
+
+        BatchResultDto result = service.bulkUpdateStatus(dto);
+
+        assertEquals(2, result.getSucceeded());
+        assertEquals(1, result.getFailed());
+        assertEquals("Order not found", result.getResults().get(1).getError());
+        verify(bulk, times(2)).updateOne(any(Query.class), any(Update.class));
+        verify(bulk).execute();
+        verify(cacheEvictor).evictAll("orders", List.of("test-id", "other-id"));
+    }
+
+    @Test
+    void bulkUpdateStatus_DuplicateIds_TransitionedOnce() {
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order));
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulk);
+        BulkWriteResult writeResult = mock(BulkWriteResult.class);
+        when(writeResult.getMatchedCount()).thenReturn(1);
+        when(bulk.execute()).thenReturn(writeResult);
+
+        BulkUpdateStatusDto dto = new BulkUpdateStatusDto();
+        dto.setIds(List.of("test-id", "test-id", "test-id"));
+        dto.setStatus("DELIVERED");
+
+        BatchResultDto result = service.bulkUpdateStatus(dto);
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertTrue(result.getResults().stream()
+                .anyMatch(r -> r.getIndex() == 0 && "UPDATED".equals(r.getOutcome())));
+        assertTrue(result.getResults().stream()
+                .anyMatch(r -> r.getIndex() == 2 && "Duplicate of index 0".equals(r.getError())));
+        verify(bulk, times(1)).updateOne(any(Query.class), any(Update.class));
+        verify(statsRollup).recordTransitions(argThat(orders -> orders.size() == 1), eq("DELIVERED"));
+        verify(cacheEvictor).evictAll("orders", List.of("test-id"));
+    }
+
+    @Test
+    void bulkUpdateStatus_TerminalOrder_ReportsInvalidTransition() {
+        order.setStatus("CANCELLED");
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(mock(BulkOperations.class));
+
+        BulkUpdateStatusDto dto = new BulkUpdateStatusDto();
+        dto.setIds(List.of("test-id"));
+        dto.setStatus("DELIVERED");
+
+        BatchResultDto result = service.bulkUpdateStatus(dto);
+
+        assertEquals(1, result.getFailed());
+        assertEquals("Invalid transition CANCELLED -> DELIVERED", result.getResults().get(0).getError());
+        verifyNoInteractions(cacheEvictor);
+    }
+
+    @Test
+    void updateStatus_InvalidStatus_ThrowsException() {
         UpdateStatusDto dto = new UpdateStatusDto();
         dto.setStatus("INVALID");
 
         assertThrows(IllegalArgumentException.class, () -> service.updateStatus("test-id", dto));
+        verifyNoInteractions(mongoTemplate);
     }
 }
\ No newline at end of file
@@ -0,0 +1,271 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.cache.CacheBatchEvictor;
+import com.example.orderservice.config.OrderIdConfig;
+import com.example.orderservice.dto.UpdateStatusDto;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.id.OrderIdAssigner;
+import com.example.orderservice.id.OrderIds;
+import com.example.orderservice.metrics.OrderMetrics;
+import com.example.orderservice.repository.OrderArchive;
+import com.example.orderservice.repository.OrderCursor;
+import com.example.orderservice.repository.OrderFilter;
+import com.example.orderservice.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Stand-in for a two-shard cluster sharded on customerId: every command sent to {@code orders} is routed the way
+ * mongos would route it (customers before "m" on one shard, the rest on the other) and the tests count the shards
+ * each read or write would hit. Like mongos 7.0, it rejects a findAndModify whose filter does not name the whole
+ * shard key: those are recorded and fail the test.
+ * <p>
+ * The routing is this test's model of mongos, so it checks the shape of the filters only; ShardedClusterIntegrationTest
+ * runs the same writes against a real mongos sharded by MongoShardingConfig.
+ */
+@DataMongoTest(properties = {
+        "de.flapdoodle.mongodb.embedded.version=7.0.2",
+        "app.order-id.customer-scoped=true"
+})
+@Import({OrderArchive.class, OrderIdConfig.class, OrderIdAssigner.class, OrderShardTargetingTest.CommandRecorder.class})
+class OrderShardTargetingTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final List<String> CUSTOMERS = List.of("alice", "bob", "mallory", "zoe");
+    private static final List<String> SHARD_KEY = List.of("customerId", "createdAt", "_id");
+    private static final List<BsonDocument> filters = new CopyOnWriteArrayList<>();
+    private static final List<BsonDocument> untargetedFindAndModify = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderRepository repository;
+
+    @Autowired
+    private OrderArchive archive;
+
+    @TestConfiguration
+    static class CommandRecorder {
+        // Records the filters of the commands on orders that mongos would route by their shard key
+        @Bean
+        MongoClientSettingsBuilderCustomizer commandRecorder() {
+            return settings -> settings.addCommandListener(new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    BsonDocument command = event.getCommand();
+                    BsonValue collection = command.get(event.getCommandName());
+                    if (collection == null || !collection.isString() || !"orders".equals(collection.asString().getValue())) {
+                        return;
+                    }
+                    switch (event.getCommandName()) {
+                        case "find", "count" -> filters.add(command.getDocument("filter", new BsonDocument()));
+                        case "findAndModify" -> {
+                            filters.add(command.getDocument("query"));
+                            if (!namesShardKey(command.getDocument("query"))) {
+                                untargetedFindAndModify.add(command.getDocument("query"));
+                            }
+                        }
+                        case "update" -> command.getArray("updates").forEach(update -> filters.add(update.asDocument().getDocument("q")));
+                        default -> {
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(Order.class);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            orders.add(order(CUSTOMERS.get(i % CUSTOMERS.size()), START.plusMinutes(i)));
+        }
+        repository.saveAll(orders);
+        filters.clear();
+        untargetedFindAndModify.clear();
+    }
+
+    @AfterEach
+    void noUntargetedFindAndModify() {
+        assertEquals(List.of(), untargetedFindAndModify, "findAndModify without the full shard key");
+    }
+
+    @Test
+    void findById_ScopedIdHitsOneShard() {
+        Order saved = repository.save(order("alice", START));
+        assertEquals(Optional.of("alice"), OrderIds.customerId(saved.getId()));
+        filters.clear();
+
+        assertEquals("alice", repository.findById(saved.getId()).orElseThrow().getCustomerId());
+
+        assertEquals(List.of(Set.of("shard-a")), shardsHit());
+    }
+
+    @Test
+    void findById_LegacyIdStillFoundOnEveryShard() {
+        String legacyId = UUID.randomUUID().toString();
+        mongoTemplate.getCollection("orders").insertOne(new Document("_id", legacyId).append("customerId", "zoe")
+                .append("status", "NEW").append("items", List.of()));
+        filters.clear();
+
+        assertEquals("zoe", repository.findById(legacyId).orElseThrow().getCustomerId());
+
+        assertEquals(List.of(Set.of("shard-a", "shard-b")), shardsHit());
+    }
+
+    @Test
+    void findPage_PerCustomerHitsOneShard() {
+        List<Order> page = repository.findPage(OrderFilter.of(null, "mallory"), null, 100);
+
+        assertEquals(10, page.size());
+        assertEquals(List.of(Set.of("shard-b")), shardsHit());
+    }
+
+    @Test
+    void findPage_AdminListingIsMergedAcrossShards() {
+        List<String> ids = new ArrayList<>();
+        OrderCursor after = null;
+        List<Order> page;
+        do {
+            page = repository.findPage(new OrderFilter(), after, 7);
+            page.forEach(order -> ids.add(order.getId()));
+            after = page.isEmpty() ? null : OrderCursor.after(page.get(page.size() - 1));
+        } while (page.size() == 7);
+
+        assertTrue(shardsHit().stream().allMatch(shards -> shards.size() == 2));
+        assertEquals(40, new HashSet<>(ids).size());
+        List<String> inKeysetOrder = mongoTemplate.find(new Query().with(Sort.by("createdAt", "_id")), Order.class).stream()
+                .map(Order::getId)
+                .toList();
+        assertEquals(inKeysetOrder, ids);
+    }
+
+    @Test
+    void statusUpdates_AreTargeted() {
+        List<Order> bobs = repository.findPage(OrderFilter.of(null, "bob"), null, 2);
+        filters.clear();
+
+        Order previous = mongoTemplate.findAndModify(OrderService.transitionQuery(OrderIds.shardKey(bobs.get(0)), "IN_PROGRESS", null),
+                OrderService.statusTransition("IN_PROGRESS", LocalDateTime.now()), Order.class);
+        mongoTemplate.updateMulti(new Query(OrderIds.whereIn(List.of(bobs.get(1).getId()))),
+                OrderService.statusUpdate("NEW", "CANCELLED", LocalDateTime.now()), Order.class);
+
+        assertEquals("NEW", previous.getStatus());
+        assertEquals(List.of(Set.of("shard-a"), Set.of("shard-a")), shardsHit());
+        assertEquals("CANCELLED", repository.findById(bobs.get(1).getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void updateStatus_NamesWholeShardKeyForScopedAndLegacyIds() {
+        OrderService service = shardedOrderService();
+        String legacyId = UUID.randomUUID().toString();
+        mongoTemplate.getCollection("orders").insertOne(new Document("_id", legacyId).append("customerId", "zoe")
+                .append("status", "NEW").append("items", List.of()).append("createdAt", new Date()));
+        String scopedId = repository.findPage(OrderFilter.of(null, "alice"), null, 1).get(0).getId();
+        filters.clear();
+
+        assertEquals("IN_PROGRESS", service.updateStatus(scopedId, status("IN_PROGRESS")).getStatus());
+        assertEquals("CANCELLED", service.updateStatus(legacyId, status("CANCELLED")).getStatus());
+
+        // Key read, then the targeted findAndModify, for each
+        assertEquals(List.of(Set.of("shard-a"), Set.of("shard-a"), Set.of("shard-a", "shard-b"), Set.of("shard-b")), shardsHit());
+    }
+
+    @Test
+    void findAndModify_ByIdAloneIsRejected() {
+        String id = repository.findPage(OrderFilter.of(null, "alice"), null, 1).get(0).getId();
+
+        mongoTemplate.findAndModify(OrderService.transitionQuery(id, "IN_PROGRESS", null),
+                OrderService.statusTransition("IN_PROGRESS", LocalDateTime.now()), Order.class);
+
+        assertEquals(1, untargetedFindAndModify.size());
+        untargetedFindAndModify.clear();
+    }
+
+    private OrderService shardedOrderService() {
+        OrderService service = new OrderService(repository, mongoTemplate, mock(CacheBatchEvictor.class),
+                new OrderMetrics(ObservationRegistry.NOOP, new SimpleMeterRegistry()), mock(OrderStatsRollup.class),
+                mock(CustomerSummaryService.class), mock(CacheManager.class), new ObjectMapper(), archive);
+        ReflectionTestUtils.setField(service, "sharded", true);
+        return service;
+    }
+
+    private static UpdateStatusDto status(String status) {
+        UpdateStatusDto dto = new UpdateStatusDto();
+        dto.setStatus(status);
+        return dto;
+    }
+
+    private static Order order(String customerId, LocalDateTime createdAt) {
+        Order order = new Order();
+        order.setCustomerId(customerId);
+        order.setCreatedAt(createdAt);
+        order.setItems(List.of());
+        return order;
+    }
+
+    // Shards each recorded command would be sent to
+    private static List<Set<String>> shardsHit() {
+        return filters.stream().map(OrderShardTargetingTest::route).toList();
+    }
+
+    // Equality on every shard key field, as mongos 7.0 requires of a findAndModify on a sharded collection
+    private static boolean namesShardKey(BsonDocument filter) {
+        return SHARD_KEY.stream().allMatch(field -> filter.containsKey(field)
+                && !(filter.get(field).isDocument() && filter.get(field).asDocument().keySet().stream().anyMatch(key -> key.startsWith("$"))));
+    }
+
+    private static Set<String> route(BsonDocument filter) {
+        BsonValue customerId = filter.get("customerId");
+        if (customerId == null && filter.containsKey("$and")) {
+            for (BsonValue clause : filter.getArray("$and")) {
+                Set<String> shards = route(clause.asDocument());
+                if (shards.size() == 1) {
+                    return shards;
+                }
+            }
+        }
+        if (customerId == null || customerId.isDocument() && !customerId.asDocument().containsKey("$in")) {
+            return Set.of("shard-a", "shard-b");
+        }
+        Set<String> shards = new HashSet<>();
+        BsonArray values = customerId.isString() ? new BsonArray(List.of(customerId)) : customerId.asDocument().getArray("$in");
+        values.forEach(value -> shards.add(value.asString().getValue().compareTo("m") < 0 ? "shard-a" : "shard-b"));
+        return shards;
+    }
+}
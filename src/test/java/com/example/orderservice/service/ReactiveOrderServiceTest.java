@@ -0,0 +1,213 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.cache.CacheInvalidationPublisher;
+import com.example.orderservice.cache.OrderJson;
+import com.example.orderservice.config.CacheTtlProperties;
+import com.example.orderservice.dto.CreateOrderDto;
+import com.example.orderservice.dto.OrderPageDto;
+import com.example.orderservice.dto.OrderResponseDto;
+import com.example.orderservice.dto.UpdateStatusDto;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.exception.OrderConflictException;
+import com.example.orderservice.repository.OrderFilter;
+import com.example.orderservice.repository.ReactiveOrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveOrderServiceTest {
+
+    @Mock
+    private ReactiveOrderRepository repository;
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private ReactiveRedisTemplate<String, Object> cacheTemplate;
+
+    @Mock
+    private ReactiveStringRedisTemplate redisTemplate;
+
+    @Mock
+    private CacheInvalidationPublisher invalidationPublisher;
+
+    @Mock
+    private ReactiveValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private CustomerSummaryService customerSummaries;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private ReactiveOrderService service;
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        CacheTtlProperties cacheTtl = new CacheTtlProperties();
+        cacheTtl.getOrderStatus().put("DELIVERED", Duration.ofHours(1));
+        service = new ReactiveOrderService(repository, mongoTemplate, cacheTemplate, redisTemplate, invalidationPublisher, cacheTtl,
+                RedisCacheConfiguration.defaultCacheConfig(), objectMapper, customerSummaries);
+
+        order = new Order();
+        order.setId("test-id");
+        order.setCustomerId("123");
+        order.setStatus("NEW");
+        Order.Item item = new Order.Item();
+        item.setSku("SKU1");
+        item.setQuantity(1);
+        item.setPrice(10.0);
+        order.setItems(List.of(item));
+        order.setCreatedAt(LocalDateTime.now());
+        order.setUpdatedAt(LocalDateTime.now());
+    }
+
+    @Test
+    void getById_CacheMiss_LoadsAndCaches() {
+        when(cacheTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("orders::test-id")).thenReturn(Mono.empty());
+        when(repository.findById("test-id")).thenReturn(Mono.just(order));
+        when(valueOperations.set(eq("orders::test-id"), any(), any(Duration.class))).thenReturn(Mono.just(true));
+
+        OrderResponseDto result = service.getById("test-id").block();
+
+        assertEquals("test-id", result.getId());
+        verify(valueOperations).set(eq("orders::test-id"), any(OrderResponseDto.class), eq(Duration.ofSeconds(60)));
+    }
+
+    @Test
+    void getById_CacheHit_SkipsMongo() {
+        OrderResponseDto cached = new OrderResponseDto();
+        cached.setId("test-id");
+        when(cacheTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("orders::test-id")).thenReturn(Mono.just(cached));
+
+        assertSame(cached, service.getById("test-id").block());
+        verify(repository, never()).findById(anyString());
+    }
+
+    @Test
+    void getById_UsesConfiguredKeyPrefix() {
+        ReactiveOrderService prefixed = new ReactiveOrderService(repository, mongoTemplate, cacheTemplate, redisTemplate,
+                invalidationPublisher, new CacheTtlProperties(),
+                RedisCacheConfiguration.defaultCacheConfig().prefixCacheNameWith("app:"), objectMapper, customerSummaries);
+        OrderResponseDto cached = new OrderResponseDto();
+        cached.setId("test-id");
+        when(cacheTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("app:orders::test-id")).thenReturn(Mono.just(cached));
+
+        assertSame(cached, prefixed.getById("test-id").block());
+    }
+
+    @Test
+    void getById_CachedOrderJson_ReadsDto() {
+        OrderResponseDto dto = OrderMapper.toDto(order);
+        when(cacheTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("orders::test-id")).thenReturn(Mono.just(OrderJson.of(dto, objectMapper.getFactory())));
+
+        assertEquals(dto, service.getById("test-id").block());
+        verify(repository, never()).findById(anyString());
+    }
+
+    @Test
+    void getFiltered_ReturnsPageWithCursor() {
+        Order next = new Order();
+        next.setItems(List.of());
+        when(repository.findPage(OrderFilter.of(null, "123"), null, 2)).thenReturn(Flux.just(order, next));
+
+        OrderPageDto page = service.getFiltered(OrderFilter.of(null, "123"), null, 1).block();
+
+        assertEquals(1, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    void create_WritesThroughAndRecordsSummary() {
+        when(repository.save(any(Order.class))).thenReturn(Mono.just(order));
+        when(cacheTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.set(eq("orders::test-id"), any(OrderResponseDto.class), any(Duration.class))).thenReturn(Mono.just(true));
+        when(invalidationPublisher.message("orders", List.of("test-id"))).thenReturn("node\norders\ntest-id");
+        when(redisTemplate.convertAndSend(CacheInvalidationPublisher.CHANNEL, "node\norders\ntest-id")).thenReturn(Mono.just(1L));
+
+        CreateOrderDto dto = new CreateOrderDto();
+        dto.setCustomerId("123");
+        dto.setItems(List.of());
+
+        OrderResponseDto result = service.create(dto).block();
+
+        assertEquals("test-id", result.getId());
+        verify(customerSummaries).recordCreated(order);
+    }
+
+    @Test
+    void updateStatus_WritesOutboxAndEvicts() {
+        List<String> summaryTransitions = new ArrayList<>();
+        doAnswer(invocation -> summaryTransitions.add(invocation.<Order>getArgument(0).getStatus() + "->" + invocation.getArgument(1)))
+                .when(customerSummaries).recordTransition(any(Order.class), anyString());
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(Order.class)))
+                .thenReturn(Mono.just(order));
+        when(cacheTemplate.delete("orders::test-id")).thenReturn(Mono.just(1L));
+        when(invalidationPublisher.message("orders", List.of("test-id"))).thenReturn("node\norders\ntest-id");
+        when(redisTemplate.convertAndSend(CacheInvalidationPublisher.CHANNEL, "node\norders\ntest-id")).thenReturn(Mono.just(1L));
+
+        UpdateStatusDto dto = new UpdateStatusDto();
+        dto.setStatus("DELIVERED");
+
+        OrderResponseDto result = service.updateStatus("test-id", dto).block();
+
+        assertEquals("DELIVERED", result.getStatus());
+        assertEquals(1L, result.getVersion());
+        verify(cacheTemplate).delete("orders::test-id");
+        verify(cacheTemplate, never()).opsForValue();
+        verify(redisTemplate).convertAndSend(CacheInvalidationPublisher.CHANNEL, "node\norders\ntest-id");
+        verify(repository, never()).findById(anyString());
+        assertEquals(List.of("NEW->DELIVERED"), summaryTransitions);
+    }
+
+    @Test
+    void updateStatus_Rejected_ErrorsWithReason() {
+        order.setStatus("CANCELLED");
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(Order.class)))
+                .thenReturn(Mono.empty());
+        when(repository.findById("test-id")).thenReturn(Mono.just(order));
+
+        UpdateStatusDto dto = new UpdateStatusDto();
+        dto.setStatus("DELIVERED");
+
+        assertThrows(OrderConflictException.class, () -> service.updateStatus("test-id", dto).block());
+        verifyNoInteractions(cacheTemplate);
+    }
+
+    @Test
+    void updateStatus_InvalidStatus_Errors() {
+        UpdateStatusDto dto = new UpdateStatusDto();
+        dto.setStatus("INVALID");
+
+        assertThrows(IllegalArgumentException.class, () -> service.updateStatus("test-id", dto).block());
+        verifyNoInteractions(mongoTemplate);
+    }
+}
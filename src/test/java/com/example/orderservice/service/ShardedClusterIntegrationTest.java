@@ -0,0 +1,136 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.cache.CacheBatchEvictor;
+import com.example.orderservice.config.MongoShardingConfig;
+import com.example.orderservice.config.OrderIdConfig;
+import com.example.orderservice.dto.UpdateStatusDto;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.id.OrderIdAssigner;
+import com.example.orderservice.id.OrderIds;
+import com.example.orderservice.metrics.OrderMetrics;
+import com.example.orderservice.repository.OrderArchive;
+import com.example.orderservice.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.flapdoodle.embed.mongo.spring.autoconfigure.EmbeddedMongoAutoConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The sharded write paths against a real mongos (Mongo 7.0, one shard), with {@code orders} sharded by
+ * {@link MongoShardingConfig}. Unlike OrderShardTargetingTest, mongos itself enforces the shard key rules here.
+ * Needs Docker; skipped without it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataMongoTest(excludeAutoConfiguration = EmbeddedMongoAutoConfiguration.class,
+        properties = {"app.sharding.enabled=true", "app.order-id.customer-scoped=true"})
+@Import({OrderArchive.class, OrderIdConfig.class, OrderIdAssigner.class, MongoShardingConfig.class})
+class ShardedClusterIntegrationTest {
+
+    @Container
+    static final MongoDBContainer mongos = new MongoDBContainer("mongo:7.0").withSharding();
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", () -> mongos.getReplicaSetUrl("orders"));
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderRepository repository;
+
+    @Autowired
+    private OrderArchive archive;
+
+    @Autowired
+    private MongoShardingConfig sharding;
+
+    private OrderService service;
+
+    @BeforeEach
+    void setUp() {
+        // ApplicationReadyEvent is not published in a test slice; sharding an already sharded collection is a no-op
+        sharding.shardOrders();
+        mongoTemplate.remove(new Query(), Order.class);
+        service = new OrderService(repository, mongoTemplate, mock(CacheBatchEvictor.class),
+                new OrderMetrics(ObservationRegistry.NOOP, new SimpleMeterRegistry()), mock(OrderStatsRollup.class),
+                mock(CustomerSummaryService.class), mock(CacheManager.class), new ObjectMapper(), archive);
+        ReflectionTestUtils.setField(service, "sharded", true);
+    }
+
+    @Test
+    void orders_AreSharded() {
+        Document collection = mongoTemplate.getMongoDatabaseFactory().getMongoDatabase("config").getCollection("collections")
+                .find(new Document("_id", mongoTemplate.getDb().getName() + ".orders")).first();
+
+        assertNotNull(collection);
+        assertEquals(new Document("customerId", 1).append("createdAt", 1).append("_id", 1), collection.get("key", Document.class));
+    }
+
+    @Test
+    void updateStatus_ScopedIdWithFreeFormCustomer() {
+        Order saved = repository.save(order("acme/eu?q=1#2"));
+
+        assertEquals(Optional.of("acme/eu?q=1#2"), OrderIds.customerId(saved.getId()));
+        assertEquals("IN_PROGRESS", service.updateStatus(saved.getId(), status("IN_PROGRESS")).getStatus());
+        assertEquals("IN_PROGRESS", repository.findById(saved.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void updateStatus_LegacyId() {
+        String legacyId = UUID.randomUUID().toString();
+        mongoTemplate.getCollection("orders").insertOne(new Document("_id", legacyId).append("customerId", "zoe")
+                .append("status", "NEW").append("items", List.of()).append("createdAt", new Date()));
+
+        assertEquals("CANCELLED", service.updateStatus(legacyId, status("CANCELLED")).getStatus());
+    }
+
+    @Test
+    void findAndModify_WithoutWholeShardKeyIsRejected() {
+        Order saved = repository.save(order("alice"));
+
+        // _id and customerId, but no createdAt: what updateStatus sent before it read the shard key
+        assertThrows(DataAccessException.class, () -> mongoTemplate.findAndModify(
+                OrderService.transitionQuery(saved.getId(), "IN_PROGRESS", null),
+                OrderService.statusTransition("IN_PROGRESS", LocalDateTime.now()), Order.class));
+    }
+
+    private static UpdateStatusDto status(String status) {
+        UpdateStatusDto dto = new UpdateStatusDto();
+        dto.setStatus(status);
+        return dto;
+    }
+
+    private static Order order(String customerId) {
+        Order order = new Order();
+        order.setCustomerId(customerId);
+        order.setItems(List.of());
+        return order;
+    }
+}